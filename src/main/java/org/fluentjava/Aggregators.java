@@ -0,0 +1,845 @@
+package org.fluentjava;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.closures.ClosureCoercion;
+import org.fluentjava.closures.Predicate;
+import org.fluentjava.collections.Aggregator;
+import org.fluentjava.collections.ComparableComparator;
+import org.fluentjava.collections.Enumerable;
+import org.fluentjava.collections.EnumeratingException;
+import org.fluentjava.collections.ExtendedSet;
+import org.fluentjava.collections.FluentList;
+import org.fluentjava.collections.FluentSet;
+import org.fluentjava.collections.ReversedComparator;
+import org.fluentjava.collections.Sequence;
+import org.fluentjava.collections.WindowAggregator;
+
+/**
+ * Class with static methods that allows ease access to pre-made {@link Aggregator}s, to be
+ * used with {@link Enumerable#aggregate(Aggregator...)}. All arguments named closure are
+ * coerced into a {@link Closure} using {@link ClosureCoercion}.
+ */
+public class Aggregators {
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Counts the elements.
+	 * 
+	 * @return
+	 */
+	public static Aggregator<Integer> count() {
+		return new Count(null);
+	}
+
+	/**
+	 * Counts the elements such that the predicate returns true.
+	 * 
+	 * @param predicate
+	 * @return
+	 */
+	public static Aggregator<Integer> count(Object predicate) {
+		return new Count(ClosureCoercion.toPredicate(predicate));
+	}
+
+	/**
+	 * Sums the elements, which must be {@link Number}s. The result is a Long if all
+	 * elements are integral (Byte, Short, Integer or Long), and a Double otherwise. The sum
+	 * of no elements is 0L.
+	 * 
+	 * @return
+	 */
+	public static Aggregator<Number> sum() {
+		return new Sum(Closures.identity());
+	}
+
+	/**
+	 * Sums the results of the closure applied to each element. See {@link #sum()}.
+	 * 
+	 * @param closure
+	 * @return
+	 */
+	public static Aggregator<Number> sum(Object closure) {
+		return new Sum(ClosureCoercion.toClosure(closure));
+	}
+
+	/**
+	 * Arithmetic mean of the elements, which must be {@link Number}s. Returns null if
+	 * there are no elements.
+	 * 
+	 * @return
+	 */
+	public static Aggregator<Double> average() {
+		return new Average(Closures.identity());
+	}
+
+	/**
+	 * Arithmetic mean of the results of the closure applied to each element. Returns null
+	 * if there are no elements.
+	 * 
+	 * @param closure
+	 * @return
+	 */
+	public static Aggregator<Double> average(Object closure) {
+		return new Average(ClosureCoercion.toClosure(closure));
+	}
+
+	/**
+	 * Like {@link Enumerable#max()}.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> Aggregator<E> max() {
+		return new Best<E>(Closures.identity(), new ComparableComparator<Object>());
+	}
+
+	/**
+	 * Like {@link Enumerable#max(Object)}: the closure is a comparator.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> Aggregator<E> max(Object closure) {
+		return new Best<E>(Closures.identity(), asComparator(closure));
+	}
+
+	/**
+	 * Like {@link Enumerable#maxBy(Object)}.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> Aggregator<E> maxBy(Object closure) {
+		Closure function = ClosureCoercion.toClosure(closure);
+		return new Best<E>(function, new ComparableComparator<Object>());
+	}
+
+	/**
+	 * Like {@link Enumerable#min()}.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> Aggregator<E> min() {
+		return new Best<E>(Closures.identity(), reversed(new ComparableComparator<Object>()));
+	}
+
+	/**
+	 * Like {@link Enumerable#min(Object)}: the closure is a comparator.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> Aggregator<E> min(Object closure) {
+		return new Best<E>(Closures.identity(), reversed(asComparator(closure)));
+	}
+
+	/**
+	 * Like {@link Enumerable#minBy(Object)}.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> Aggregator<E> minBy(Object closure) {
+		Closure function = ClosureCoercion.toClosure(closure);
+		return new Best<E>(function, reversed(new ComparableComparator<Object>()));
+	}
+
+	/**
+	 * The first element, or null if there are no elements.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> Aggregator<E> first() {
+		return new Edge<E>(true);
+	}
+
+	/**
+	 * The last element, or null if there are no elements.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> Aggregator<E> last() {
+		return new Edge<E>(false);
+	}
+
+	/**
+	 * Custom reducer, like {@link Enumerable#reduce(Object)}. Can be merged, in which case
+	 * the closure must be associative.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> Aggregator<E> reduce(Object closure) {
+		return new Reduce<E>(ClosureCoercion.toClosure(closure), null, false);
+	}
+
+	/**
+	 * Custom reducer, like {@link Enumerable#reduce(Object, Object)}. Cannot be merged.
+	 * 
+	 * @param <E>
+	 * @param initial
+	 * @param closure
+	 * @return
+	 */
+	public static <E> Aggregator<E> reduce(E initial, Object closure) {
+		return new Reduce<E>(ClosureCoercion.toClosure(closure), initial, true);
+	}
+
+	/**
+	 * Like {@link #sum()}, for sliding windows. Integral sums stay exact; sums with real
+	 * numbers subtract the ones leaving the window, so rounding errors may add up over long
+	 * iterations.
+	 * 
+	 * @return
+	 */
+	public static WindowAggregator<Number> slidingSum() {
+		return new Sum(Closures.identity());
+	}
+
+	/**
+	 * Like {@link #sum(Object)}, for sliding windows. See {@link #slidingSum()}.
+	 * 
+	 * @param closure
+	 * @return
+	 */
+	public static WindowAggregator<Number> slidingSum(Object closure) {
+		return new Sum(ClosureCoercion.toClosure(closure));
+	}
+
+	/**
+	 * Like {@link #average()}, for sliding windows, such as moving averages. See
+	 * {@link #slidingSum()}.
+	 * 
+	 * @return
+	 */
+	public static WindowAggregator<Double> slidingAverage() {
+		return new Average(Closures.identity());
+	}
+
+	/**
+	 * Like {@link #average(Object)}, for sliding windows. See {@link #slidingSum()}.
+	 * 
+	 * @param closure
+	 * @return
+	 */
+	public static WindowAggregator<Double> slidingAverage(Object closure) {
+		return new Average(ClosureCoercion.toClosure(closure));
+	}
+
+	/**
+	 * Like {@link #max()}, for sliding windows. Keeps a deque of the elements that may
+	 * still be the maximum of a later window, so each element is compared a constant
+	 * amount of times, on average.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> WindowAggregator<E> slidingMax() {
+		return new SlidingBest<E>(Closures.identity(), new ComparableComparator<Object>());
+	}
+
+	/**
+	 * Like {@link #maxBy(Object)}, for sliding windows. See {@link #slidingMax()}.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> WindowAggregator<E> slidingMaxBy(Object closure) {
+		Closure function = ClosureCoercion.toClosure(closure);
+		return new SlidingBest<E>(function, new ComparableComparator<Object>());
+	}
+
+	/**
+	 * Like {@link #min()}, for sliding windows. See {@link #slidingMax()}.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> WindowAggregator<E> slidingMin() {
+		Comparator<Object> comparator = reversed(new ComparableComparator<Object>());
+		return new SlidingBest<E>(Closures.identity(), comparator);
+	}
+
+	/**
+	 * Like {@link #minBy(Object)}, for sliding windows. See {@link #slidingMax()}.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> WindowAggregator<E> slidingMinBy(Object closure) {
+		Closure function = ClosureCoercion.toClosure(closure);
+		return new SlidingBest<E>(function, reversed(new ComparableComparator<Object>()));
+	}
+
+	/**
+	 * Collects the elements in a list, in order.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> Aggregator<FluentList<E>> toList() {
+		return new ToCollection<E, FluentList<E>>(true);
+	}
+
+	/**
+	 * Collects the elements in a set.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E> Aggregator<FluentSet<E>> toSet() {
+		return new ToCollection<E, FluentSet<E>>(false);
+	}
+
+	/**
+	 * Applies the closure to each element, like {@link Enumerable#foreach(Object)}. The
+	 * result is always null.
+	 * 
+	 * @param closure
+	 * @return
+	 */
+	public static Aggregator<Void> each(Object closure) {
+		return new Each(ClosureCoercion.toClosure(closure));
+	}
+
+	/**
+	 * Estimates how many distinct elements there are, in constant memory, with a
+	 * HyperLogLog sketch. The error is usually below 1%; up to a few thousand distinct
+	 * elements, it is much smaller. Merges, so it works in parallel and across batches.
+	 * 
+	 * @return
+	 */
+	public static Aggregator<Long> approxCountDistinct() {
+		return new HyperLogLog(Closures.identity());
+	}
+
+	/**
+	 * Estimates how many distinct results the closure returns for the elements, like
+	 * {@link #approxCountDistinct()}.
+	 * 
+	 * @param closure
+	 * @return
+	 */
+	public static Aggregator<Long> approxCountDistinct(Object closure) {
+		return new HyperLogLog(ClosureCoercion.toClosure(closure));
+	}
+
+	/**
+	 * Estimates the elements at the quantiles of their natural order, in memory that grows
+	 * only with the logarithm of their amount, with a KLL sketch. The rank of each result
+	 * is usually off by less than 2% of the amount of elements. The result has nulls if
+	 * there were no elements. Merges, so it works in parallel and across batches.
+	 * 
+	 * @param <E>
+	 * @param quantiles
+	 * Each one from 0 to 1; 0.5 is the median.
+	 * @return
+	 */
+	public static <E> Aggregator<FluentList<E>> approxQuantiles(double... quantiles) {
+		return new QuantileSketch<E>(Closures.identity(), quantiles);
+	}
+
+	/**
+	 * Estimates the results of the closure at the quantiles of their natural order, like
+	 * {@link #approxQuantiles(double...)}. The quantiles are an array, not varargs, so
+	 * that a number given as first argument is never taken for the closure.
+	 * 
+	 * @param <E>
+	 * @param closure
+	 * @param quantiles
+	 * Each one from 0 to 1; 0.5 is the median.
+	 * @return
+	 */
+	public static <E> Aggregator<FluentList<E>> approxQuantiles(Object closure,
+			double[] quantiles) {
+		return new QuantileSketch<E>(ClosureCoercion.toClosure(closure), quantiles);
+	}
+
+	/*
+	 * Constructors
+	 */
+	private Aggregators() {
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private static Comparator<Object> asComparator(Object closure) {
+		return ClosureCoercion.toClosure(closure).as(Comparator.class);
+	}
+
+	private static Comparator<Object> reversed(Comparator<Object> comparator) {
+		return new ReversedComparator<Object>(comparator);
+	}
+
+	private static boolean isIntegral(Number number) {
+		return number instanceof Integer || number instanceof Long
+				|| number instanceof Short || number instanceof Byte;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Counts elements, optionally filtered by a predicate.
+	 */
+	private static class Count extends Aggregator<Integer> {
+		private final Predicate predicate;
+		private int total;
+
+		public Count(Predicate predicate) {
+			this.predicate = predicate;
+		}
+
+		@Override
+		public void add(Object element) throws Exception {
+			if (predicate == null || predicate.eval(element)) {
+				total++;
+			}
+		}
+
+		@Override
+		public Integer result() {
+			return total;
+		}
+
+		@Override
+		public Aggregator<Integer> emptyCopy() {
+			return new Count(predicate);
+		}
+
+		@Override
+		public void merge(Aggregator<Integer> other) {
+			total += ((Count) other).total;
+		}
+	}
+
+	/**
+	 * Sums numbers, keeping integral sums exact while possible.
+	 */
+	private static class Sum extends WindowAggregator<Number> {
+		private final Closure function;
+		private long integralSum;
+		private double realSum;
+		private long reals;
+
+		public Sum(Closure function) {
+			this.function = function;
+		}
+
+		@Override
+		public void add(Object element) throws Exception {
+			Number number = function.invoke(element);
+			if (isIntegral(number)) {
+				integralSum += number.longValue();
+			}
+			else {
+				reals++;
+				realSum += number.doubleValue();
+			}
+		}
+
+		@Override
+		public void remove(Object element) throws Exception {
+			Number number = function.invoke(element);
+			if (isIntegral(number)) {
+				integralSum -= number.longValue();
+			}
+			else {
+				reals--;
+				realSum -= number.doubleValue();
+			}
+		}
+
+		@Override
+		public Number result() {
+			if (reals == 0) {
+				return integralSum;
+			}
+			return realSum + integralSum;
+		}
+
+		@Override
+		public WindowAggregator<Number> emptyCopy() {
+			return new Sum(function);
+		}
+
+		@Override
+		public void merge(Aggregator<Number> other) {
+			Sum sum = (Sum) other;
+			integralSum += sum.integralSum;
+			realSum += sum.realSum;
+			reals += sum.reals;
+		}
+	}
+
+	/**
+	 * Arithmetic mean.
+	 */
+	private static class Average extends WindowAggregator<Double> {
+		private final Closure function;
+		private double sum;
+		private long count;
+
+		public Average(Closure function) {
+			this.function = function;
+		}
+
+		@Override
+		public void add(Object element) throws Exception {
+			Number number = function.invoke(element);
+			sum += number.doubleValue();
+			count++;
+		}
+
+		@Override
+		public void remove(Object element) throws Exception {
+			Number number = function.invoke(element);
+			sum -= number.doubleValue();
+			count--;
+		}
+
+		@Override
+		public Double result() {
+			if (count == 0) {
+				return null;
+			}
+			return sum / count;
+		}
+
+		@Override
+		public WindowAggregator<Double> emptyCopy() {
+			return new Average(function);
+		}
+
+		@Override
+		public void merge(Aggregator<Double> other) {
+			Average average = (Average) other;
+			sum += average.sum;
+			count += average.count;
+		}
+	}
+
+	/**
+	 * Keeps the first element whose value (given by a closure) is the greatest according
+	 * to a comparator.
+	 * 
+	 * @param <E>
+	 */
+	private static class Best<E> extends Aggregator<E> {
+		private final Closure function;
+		private final Comparator<Object> comparator;
+		private boolean empty = true;
+		private E best;
+		private Object bestValue;
+
+		public Best(Closure function, Comparator<Object> comparator) {
+			this.function = function;
+			this.comparator = comparator;
+		}
+
+		@Override
+		public void add(Object element) throws Exception {
+			E e = as(element);
+			offer(e, function.call(element));
+		}
+
+		@Override
+		public E result() {
+			return best;
+		}
+
+		@Override
+		public Aggregator<E> emptyCopy() {
+			return new Best<E>(function, comparator);
+		}
+
+		@Override
+		public void merge(Aggregator<E> other) {
+			Best<E> that = as(other);
+			if (!that.empty) {
+				offer(that.best, that.bestValue);
+			}
+		}
+
+		private void offer(E element, Object value) {
+			if (empty || comparator.compare(value, bestValue) > 0) {
+				empty = false;
+				best = element;
+				bestValue = value;
+			}
+		}
+	}
+
+	/**
+	 * Like {@link Best}, over a sliding window: a deque, kept in a ring buffer, holds the
+	 * elements that are better than every element added after them, so the front is the
+	 * best element of the window. Adding pops from the back the elements that can no
+	 * longer be the best, and removing pops the front if it is the element leaving.
+	 * 
+	 * @param <E>
+	 */
+	private static class SlidingBest<E> extends WindowAggregator<E> {
+		private final Closure function;
+		private final Comparator<Object> comparator;
+		private Object[] elements = new Object[16];
+		private Object[] values = new Object[16];
+		private long[] positions = new long[16];
+		private int head;
+		private int size;
+		private long added;
+		private long removed;
+
+		public SlidingBest(Closure function, Comparator<Object> comparator) {
+			this.function = function;
+			this.comparator = comparator;
+		}
+
+		@Override
+		public void add(Object element) throws Exception {
+			Object value = function.call(element);
+			while (size > 0 && comparator.compare(values[index(size - 1)], value) < 0) {
+				size--;
+				elements[index(size)] = null;
+				values[index(size)] = null;
+			}
+			if (size == elements.length) {
+				grow();
+			}
+			int last = index(size);
+			elements[last] = element;
+			values[last] = value;
+			positions[last] = added++;
+			size++;
+		}
+
+		@Override
+		public void remove(Object element) {
+			if (size > 0 && positions[head] == removed) {
+				elements[head] = null;
+				values[head] = null;
+				head = index(1);
+				size--;
+			}
+			removed++;
+		}
+
+		@Override
+		public E result() {
+			if (size == 0) {
+				return null;
+			}
+			return as(elements[head]);
+		}
+
+		@Override
+		public WindowAggregator<E> emptyCopy() {
+			return new SlidingBest<E>(function, comparator);
+		}
+
+		private int index(int offset) {
+			return (head + offset) % elements.length;
+		}
+
+		private void grow() {
+			Object[] moreElements = new Object[elements.length * 2];
+			Object[] moreValues = new Object[elements.length * 2];
+			long[] morePositions = new long[elements.length * 2];
+			for (int i = 0; i < size; i++) {
+				moreElements[i] = elements[index(i)];
+				moreValues[i] = values[index(i)];
+				morePositions[i] = positions[index(i)];
+			}
+			elements = moreElements;
+			values = moreValues;
+			positions = morePositions;
+			head = 0;
+		}
+	}
+
+	/**
+	 * Keeps the first or the last element.
+	 * 
+	 * @param <E>
+	 */
+	private static class Edge<E> extends Aggregator<E> {
+		private final boolean keepFirst;
+		private boolean empty = true;
+		private E element;
+
+		public Edge(boolean keepFirst) {
+			this.keepFirst = keepFirst;
+		}
+
+		@Override
+		public void add(Object e) {
+			if (empty || !keepFirst) {
+				empty = false;
+				element = as(e);
+			}
+		}
+
+		@Override
+		public E result() {
+			return element;
+		}
+
+		@Override
+		public Aggregator<E> emptyCopy() {
+			return new Edge<E>(keepFirst);
+		}
+
+		@Override
+		public void merge(Aggregator<E> other) {
+			Edge<E> that = as(other);
+			if (!that.empty) {
+				add(that.element);
+			}
+		}
+	}
+
+	/**
+	 * Reduces with a closure, like {@link Enumerable#reduce(Object, Object)}.
+	 * 
+	 * @param <E>
+	 */
+	private static class Reduce<E> extends Aggregator<E> {
+		private final Closure function;
+		private final E initial;
+		private final boolean hasInitial;
+		private boolean empty;
+		private E result;
+
+		public Reduce(Closure function, E initial, boolean hasInitial) {
+			this.function = function;
+			this.initial = initial;
+			this.hasInitial = hasInitial;
+			this.result = initial;
+			this.empty = !hasInitial;
+		}
+
+		@Override
+		public void add(Object element) throws Exception {
+			if (empty) {
+				empty = false;
+				result = as(element);
+			}
+			else {
+				result = function.<E>invoke(result, element);
+			}
+		}
+
+		@Override
+		public E result() {
+			return result;
+		}
+
+		@Override
+		public Aggregator<E> emptyCopy() {
+			return new Reduce<E>(function, initial, hasInitial);
+		}
+
+		@Override
+		public void merge(Aggregator<E> other) {
+			if (hasInitial) {
+				super.merge(other);
+			}
+			Reduce<E> that = as(other);
+			if (!that.empty) {
+				try {
+					add(that.result);
+				} catch (Exception e) {
+					throw new EnumeratingException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects elements in a {@link Sequence} or an {@link ExtendedSet}.
+	 * 
+	 * @param <E>
+	 * @param <C>
+	 */
+	private static class ToCollection<E, C extends Collection<E>> extends Aggregator<C> {
+		private final boolean list;
+		private final C collection;
+
+		public ToCollection(boolean list) {
+			this.list = list;
+			if (list) {
+				this.collection = as(new Sequence<E>());
+			}
+			else {
+				this.collection = as(new ExtendedSet<E>());
+			}
+		}
+
+		@Override
+		public void add(Object element) {
+			E e = as(element);
+			collection.add(e);
+		}
+
+		@Override
+		public C result() {
+			return collection;
+		}
+
+		@Override
+		public Aggregator<C> emptyCopy() {
+			return new ToCollection<E, C>(list);
+		}
+
+		@Override
+		public void merge(Aggregator<C> other) {
+			collection.addAll(other.result());
+		}
+	}
+
+	/**
+	 * Applies a closure to each element.
+	 */
+	private static class Each extends Aggregator<Void> {
+		private final Closure function;
+
+		public Each(Closure function) {
+			this.function = function;
+		}
+
+		@Override
+		public void add(Object element) throws Exception {
+			function.call(element);
+		}
+
+		@Override
+		public Void result() {
+			return null;
+		}
+
+		@Override
+		public Aggregator<Void> emptyCopy() {
+			return this;
+		}
+
+		@Override
+		public void merge(Aggregator<Void> other) {
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package org.fluentjava;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.fluentjava.collections.ElementCodec;
+import org.fluentjava.collections.Enumerable;
+
+/**
+ * Class with static methods that allows ease access to pre-made {@link ElementCodec}s, to
+ * be used with {@link Enumerable#externalSort(ElementCodec, int)} and its variants.
+ */
+public class ElementCodecs {
+	/*
+	 * Constants
+	 */
+	private static final String CHARSET = "UTF-8";
+	private static final int NULL_LENGTH = -1;
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Codec of Strings, as UTF-8. Supports nulls.
+	 * 
+	 * @return
+	 */
+	public static ElementCodec<String> strings() {
+		return new Strings();
+	}
+
+	/**
+	 * Codec of Integers, as 4 bytes. Does not support nulls.
+	 * 
+	 * @return
+	 */
+	public static ElementCodec<Integer> integers() {
+		return new Integers();
+	}
+
+	/**
+	 * Codec of Longs, as 8 bytes. Does not support nulls.
+	 * 
+	 * @return
+	 */
+	public static ElementCodec<Long> longs() {
+		return new Longs();
+	}
+
+	/**
+	 * Codec of Doubles, as 8 bytes. Does not support nulls.
+	 * 
+	 * @return
+	 */
+	public static ElementCodec<Double> doubles() {
+		return new Doubles();
+	}
+
+	/**
+	 * Codec of any {@link Serializable} element, using Java serialization for each one.
+	 * Supports nulls. Much slower and bigger than a codec written for the type of the
+	 * elements.
+	 * 
+	 * @param <E>
+	 * @return
+	 */
+	public static <E extends Serializable> ElementCodec<E> serialized() {
+		return new Serialized<E>();
+	}
+
+	/*
+	 * Constructors
+	 */
+	private ElementCodecs() {
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Length of the UTF-8 bytes, followed by them.
+	 */
+	private static class Strings implements ElementCodec<String> {
+		public void write(String element, DataOutput output) throws IOException {
+			if (element == null) {
+				output.writeInt(NULL_LENGTH);
+				return;
+			}
+			byte[] bytes = element.getBytes(CHARSET);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+
+		public String read(DataInput input) throws IOException {
+			int length = input.readInt();
+			if (length == NULL_LENGTH) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			input.readFully(bytes);
+			return new String(bytes, CHARSET);
+		}
+	}
+
+	private static class Integers implements ElementCodec<Integer> {
+		public void write(Integer element, DataOutput output) throws IOException {
+			output.writeInt(element);
+		}
+
+		public Integer read(DataInput input) throws IOException {
+			return input.readInt();
+		}
+	}
+
+	private static class Longs implements ElementCodec<Long> {
+		public void write(Long element, DataOutput output) throws IOException {
+			output.writeLong(element);
+		}
+
+		public Long read(DataInput input) throws IOException {
+			return input.readLong();
+		}
+	}
+
+	private static class Doubles implements ElementCodec<Double> {
+		public void write(Double element, DataOutput output) throws IOException {
+			output.writeDouble(element);
+		}
+
+		public Double read(DataInput input) throws IOException {
+			return input.readDouble();
+		}
+	}
+
+	/**
+	 * Length of the serialized bytes of each element, followed by them.
+	 */
+	private static class Serialized<E extends Serializable> implements ElementCodec<E> {
+		public void write(E element, DataOutput output) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream objects = new ObjectOutputStream(bytes);
+			objects.writeObject(element);
+			objects.close();
+			output.writeInt(bytes.size());
+			output.write(bytes.toByteArray());
+		}
+
+		public E read(DataInput input) throws IOException {
+			byte[] bytes = new byte[input.readInt()];
+			input.readFully(bytes);
+			ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			try {
+				return as(objects.readObject());
+			} catch (ClassNotFoundException e) {
+				IOException failure = new IOException("Cannot read serialized element");
+				failure.initCause(e);
+				throw failure;
+			} finally {
+				objects.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package org.fluentjava;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.closures.ClosureCoercion;
+import org.fluentjava.collections.ComparableComparator;
+import org.fluentjava.collections.Enumerable;
+import org.fluentjava.collections.Enumerator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+import org.fluentjava.iterators.MergingIterator;
+
+/**
+ * Class with static methods that combine several iterables into one {@link Enumerable}.
+ * All arguments named closure are coerced into a {@link Closure} using
+ * {@link ClosureCoercion}.
+ */
+public class Enumerables {
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Lazily merges sources, each already sorted by the comparator, into one sorted
+	 * enumerable, without sorting again: O(n log k) comparisons for n elements in k
+	 * sources, holding only the next element of each source. Equal elements are returned
+	 * in the order of their sources.
+	 * 
+	 * @param <T>
+	 * @param closure
+	 * The comparator. If null, the natural order of the elements.
+	 * @param sources
+	 * @return
+	 */
+	public static <T> Enumerable<T> mergeSorted(Object closure,
+			Iterable<? extends T>... sources) {
+		return mergeSorted(closure, false, sources);
+	}
+
+	/**
+	 * Same as {@link #mergeSorted(Object, Iterable...)}. If distinct is true, only the
+	 * first of several elements equal according to the comparator is returned, whether
+	 * they come from the same source or not.
+	 * 
+	 * @param <T>
+	 * @param closure
+	 * The comparator. If null, the natural order of the elements.
+	 * @param distinct
+	 * @param sources
+	 * @return
+	 */
+	public static <T> Enumerable<T> mergeSorted(Object closure, boolean distinct,
+			Iterable<? extends T>... sources) {
+		Comparator<T> comparator;
+		if (closure == null) {
+			comparator = new ComparableComparator<T>();
+		}
+		else {
+			comparator = ClosureCoercion.toClosure(closure).as(Comparator.class);
+		}
+		return new Enumerator<T>(new MergeSorted<T>(comparator, distinct, sources));
+	}
+
+	/*
+	 * Constructors
+	 */
+	private Enumerables() {
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private static class MergeSorted<T> implements ExtendedIterable<T> {
+		private final Comparator<? super T> comparator;
+		private final boolean distinct;
+		private final Iterable<? extends T>[] sources;
+
+		MergeSorted(Comparator<? super T> comparator, boolean distinct,
+				Iterable<? extends T>... sources) {
+			this.comparator = comparator;
+			this.distinct = distinct;
+			this.sources = sources;
+		}
+
+		public ExtendedIterator<T> iterator() {
+			Iterator<? extends T>[] iterators = as(new Iterator<?>[sources.length]);
+			for (int i = 0; i < sources.length; i++) {
+				iterators[i] = sources[i].iterator();
+			}
+			return new MergingIterator<T>(comparator, distinct, iterators);
+		}
+	}
+}
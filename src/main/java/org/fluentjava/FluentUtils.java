@@ -23,6 +23,7 @@ import org.fluentjava.collections.Sequence;
 import org.fluentjava.iterators.AbstractExtendedIterator;
 import org.fluentjava.iterators.ExtendedIterable;
 import org.fluentjava.iterators.ExtendedIterator;
+import org.fluentjava.iterators.SkippableIterator;
 
 /**
  * Class with static methods that serves as facade to several objects of the API. If you
@@ -323,7 +324,9 @@ public class FluentUtils {
 	/**
 	 * Inner class that makes iranges.
 	 */
-	private static class IRangeExtendedIterator extends AbstractExtendedIterator<Integer> {
+	private static class IRangeExtendedIterator extends AbstractExtendedIterator<Integer>
+			implements
+				SkippableIterator<Integer> {
 		private final int stop;
 		private int cur;
 
@@ -344,6 +347,12 @@ public class FluentUtils {
 			cur++;
 			return ret;
 		}
+
+		public int skip(int n) {
+			int skipped = (int) Math.max(0, Math.min(n, (long) stop - cur));
+			cur += skipped;
+			return skipped;
+		}
 	}
 
 	/**
@@ -0,0 +1,131 @@
+package org.fluentjava;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.collections.Aggregator;
+
+/**
+ * Implements {@link Aggregators#approxCountDistinct(Object)}: estimates how many distinct
+ * values there are, in constant memory, with a HyperLogLog sketch. Each value is hashed
+ * to 64 bits; the first {@link #PRECISION} bits choose one of 2^PRECISION registers, and
+ * the register keeps the greatest position of the first one bit seen in the rest. The
+ * estimate is the normalized harmonic mean of 2^register, corrected by linear counting of
+ * the empty registers when it is small. The standard error is about 1.04 / sqrt(2^14),
+ * 0.8%, using 16 KB.
+ *
+ * Two sketches merge by keeping the greatest of each register, so counting batches
+ * apart and merging them estimates the same as counting them together.
+ */
+class HyperLogLog extends Aggregator<Long> {
+	/*
+	 * Constants
+	 */
+	static final int PRECISION = 14;
+	private static final int REGISTERS = 1 << PRECISION;
+	private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+	private static final double LINEAR_COUNTING_LIMIT = 2.5 * REGISTERS;
+	private static final long MIX_1 = 0xff51afd7ed558ccdL;
+	private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+	private static final int MIX_SHIFT = 33;
+	private static final long STRING_BASIS = 0xcbf29ce484222325L;
+	private static final long CHAR_MULTIPLIER = 0x100000001b3L;
+
+	/*
+	 * Variables
+	 */
+	private final Closure function;
+	private final byte[] registers = new byte[REGISTERS];
+
+	/*
+	 * Constructors
+	 */
+	HyperLogLog(Closure function) {
+		this.function = function;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	@Override
+	public void add(Object element) throws Exception {
+		long hash = hash(function.call(element));
+		int index = (int) (hash >>> (Long.SIZE - PRECISION));
+		long rest = hash << PRECISION | 1L << (PRECISION - 1);
+		byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+		if (rank > registers[index]) {
+			registers[index] = rank;
+		}
+	}
+
+	@Override
+	public Long result() {
+		double sum = 0;
+		int empty = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				empty++;
+			}
+		}
+		double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+		if (estimate <= LINEAR_COUNTING_LIMIT && empty > 0) {
+			estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+		}
+		return Math.round(estimate);
+	}
+
+	@Override
+	public Aggregator<Long> emptyCopy() {
+		return new HyperLogLog(function);
+	}
+
+	@Override
+	public void merge(Aggregator<Long> other) {
+		byte[] others = ((HyperLogLog) other).registers;
+		for (int i = 0; i < REGISTERS; i++) {
+			if (others[i] > registers[i]) {
+				registers[i] = others[i];
+			}
+		}
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * 64 bits hash, spread so that every bit depends on every bit of the value. Strings
+	 * and longs are hashed from all their bits, since their hashCode has only 32.
+	 */
+	static long hash(Object value) {
+		long hash;
+		if (value instanceof String) {
+			hash = STRING_BASIS;
+			String string = (String) value;
+			for (int i = 0; i < string.length(); i++) {
+				hash = (hash ^ string.charAt(i)) * CHAR_MULTIPLIER;
+			}
+		}
+		else if (value instanceof Long) {
+			hash = (Long) value;
+		}
+		else if (value instanceof Double) {
+			hash = Double.doubleToLongBits((Double) value);
+		}
+		else if (value == null) {
+			hash = 0;
+		}
+		else {
+			hash = value.hashCode();
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * The finalizer of MurmurHash3.
+	 */
+	private static long mix(long value) {
+		long ret = value;
+		ret = (ret ^ (ret >>> MIX_SHIFT)) * MIX_1;
+		ret = (ret ^ (ret >>> MIX_SHIFT)) * MIX_2;
+		return ret ^ (ret >>> MIX_SHIFT);
+	}
+}
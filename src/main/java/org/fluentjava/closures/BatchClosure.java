@@ -0,0 +1,70 @@
+package org.fluentjava.closures;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Closure} of one argument that can be applied to many arguments at once, such as
+ * a lookup on a remote cache or storage, where each call costs a round trip.
+ *
+ * Enumerable.map and imap recognize it, and call {@link #callBatch(List)} once per chunk
+ * of {@link #batchSize()} elements, instead of {@link #call(Object...)} once per element.
+ */
+public abstract class BatchClosure extends Closure {
+	/*
+	 * Constants
+	 */
+	/**
+	 * Chunk size used when none is given.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 256;
+
+	/*
+	 * Variables
+	 */
+	private final int batchSize;
+
+	/*
+	 * Constructors
+	 */
+	public BatchClosure() {
+		this(DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param batchSize
+	 * Maximum amount of elements passed to each {@link #callBatch(List)}.
+	 */
+	public BatchClosure(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive:" + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Applies self to every argument at once.
+	 *
+	 * @param args
+	 * The arguments, one per call. The list may be reused after this method returns, so
+	 * it must not be kept.
+	 * @return One result per argument, in the same order.
+	 * @throws Exception
+	 */
+	public abstract List<?> callBatch(List<?> args) throws Exception;
+
+	/**
+	 * Calls {@link #callBatch(List)} on a batch of just args[0].
+	 */
+	@Override
+	public Object call(Object... args) throws Exception {
+		return callBatch(Collections.singletonList(args[0])).get(0);
+	}
+
+	public int batchSize() {
+		return batchSize;
+	}
+}
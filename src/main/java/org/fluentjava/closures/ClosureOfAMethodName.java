@@ -25,4 +25,13 @@ public class ClosureOfAMethodName extends Closure {
 		List<Object> restList = asList(args).subList(1, args.length);
 		return new ReflectiveInvoker(methodName, target, restList).invoke();
 	}
+
+	/**
+	 * The name of the method invoked.
+	 * 
+	 * @return
+	 */
+	public String getMethodName() {
+		return methodName;
+	}
 }
@@ -23,4 +23,13 @@ public class PriviligedClosureOfAMethodName extends Closure {
 		return new ReflectiveInvoker(methodName, target, asList(args)).priviligedInvoke();
 	}
 
+	/**
+	 * The name of the method invoked.
+	 * 
+	 * @return
+	 */
+	public String getMethodName() {
+		return methodName;
+	}
+
 }
@@ -1,24 +1,27 @@
 package org.fluentjava.collections;
 
+import static java.util.Arrays.asList;
 import static org.fluentjava.FluentUtils.as;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Random;
+import java.util.RandomAccess;
 import java.util.Map.Entry;
 
 import org.fluentjava.Closures;
-import org.fluentjava.FluentUtils;
+import org.fluentjava.closures.BatchClosure;
 import org.fluentjava.closures.Closure;
 import org.fluentjava.closures.ClosureCoercion;
 import org.fluentjava.closures.Predicate;
-import org.fluentjava.iterators.AbstractExtendedIterator;
-import org.fluentjava.iterators.ExtendedIterable;
 import org.fluentjava.iterators.ExtendedIterator;
 import org.fluentjava.iterators.LimitedIterator;
+import org.fluentjava.iterators.ZipCursor;
 
 /**
  * Default implementation of {@link Enumerable}. The only method left for subclasses to
@@ -27,6 +30,11 @@ import org.fluentjava.iterators.LimitedIterator;
  * @param <E>
  */
 public abstract class AbstractEnumerable<E> implements Enumerable<E> {
+	/*
+	 * Constants
+	 */
+	private static final double MEDIAN = 50;
+
 	public abstract ExtendedIterator<E> iterator();
 
 	public E detect(Object closure) throws EnumeratingException {
@@ -128,13 +136,11 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 	}
 
 	public Enumerable<E> iselect(Object closure) throws EnumeratingException {
-		Predicate predicate = convertToPredicate(closure);
-		return asEnum(new LazySelect<E>(this, predicate));
+		return filter("iselect", closure, convertToPredicate(closure));
 	}
 
 	public Enumerable<E> ireject(Object closure) throws EnumeratingException {
-		Predicate predicate = convertToPredicate(closure).negated();
-		return asEnum(new LazySelect<E>(this, predicate));
+		return filter("ireject", closure, convertToPredicate(closure).negated());
 	}
 
 	public FluentList<E> findAll(Object closure) throws EnumeratingException {
@@ -163,6 +169,9 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 
 	public <T> FluentList<T> map(Object closure) throws EnumeratingException {
 		Closure function = convertToClosure(closure);
+		if (function instanceof BatchClosure) {
+			return this.<T>imap(function).toList();
+		}
 		try {
 			FluentList<T> list = new Sequence<T>();
 			for (E e : iterator()) {
@@ -178,7 +187,10 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 	@Override
 	public <T> Enumerable<T> imap(Object closure) throws EnumeratingException {
 		Closure function = convertToClosure(closure);
-		return asEnum(new LazyMap<E, T>(this, function));
+		if (function instanceof BatchClosure) {
+			return asEnum("imap", closure, new LazyBatchMap<E, T>(this, (BatchClosure) function));
+		}
+		return asEnum("imap", closure, new LazyMap<E, T>(this, function));
 	}
 
 	public <T> FluentList<T> collect(Object closure) throws EnumeratingException {
@@ -190,6 +202,54 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 		return imap(closure);
 	}
 
+	public <R> Enumerable<Pair<E, R>> join(Iterable<R> right, Object leftKey,
+			Object rightKey) throws EnumeratingException {
+		return join(right, leftKey, rightKey, JoinSide.RIGHT);
+	}
+
+	public <R> Enumerable<Pair<E, R>> join(Iterable<R> right, Object leftKey,
+			Object rightKey, JoinSide buildSide) throws EnumeratingException {
+		Object[] keys = {leftKey, rightKey};
+		return asEnum("join", keys, hashJoin(right, leftKey, rightKey, buildSide).pairs(false),
+				right);
+	}
+
+	public <R> Enumerable<Pair<E, R>> leftJoin(Iterable<R> right, Object leftKey,
+			Object rightKey) throws EnumeratingException {
+		return leftJoin(right, leftKey, rightKey, JoinSide.RIGHT);
+	}
+
+	public <R> Enumerable<Pair<E, R>> leftJoin(Iterable<R> right, Object leftKey,
+			Object rightKey, JoinSide buildSide) throws EnumeratingException {
+		Object[] keys = {leftKey, rightKey};
+		return asEnum("leftJoin", keys, hashJoin(right, leftKey, rightKey, buildSide).pairs(true),
+				right);
+	}
+
+	public <R> Enumerable<E> semiJoin(Iterable<R> right, Object leftKey, Object rightKey)
+			throws EnumeratingException {
+		return semiJoin(right, leftKey, rightKey, JoinSide.SMALLER);
+	}
+
+	public <R> Enumerable<E> semiJoin(Iterable<R> right, Object leftKey, Object rightKey,
+			JoinSide buildSide) throws EnumeratingException {
+		Object[] keys = {leftKey, rightKey};
+		return asEnum("semiJoin", keys, hashJoin(right, leftKey, rightKey, buildSide).filter(false),
+				right);
+	}
+
+	public <R> Enumerable<E> antiJoin(Iterable<R> right, Object leftKey, Object rightKey)
+			throws EnumeratingException {
+		return antiJoin(right, leftKey, rightKey, JoinSide.SMALLER);
+	}
+
+	public <R> Enumerable<E> antiJoin(Iterable<R> right, Object leftKey, Object rightKey,
+			JoinSide buildSide) throws EnumeratingException {
+		Object[] keys = {leftKey, rightKey};
+		return asEnum("antiJoin", keys, hashJoin(right, leftKey, rightKey, buildSide).filter(true),
+				right);
+	}
+
 	public FluentList<E> sort(Object closure) throws EnumeratingException {
 		Comparator<E> comparator = convertToClosure(closure).toInteface(Comparator.class);
 		try {
@@ -209,6 +269,39 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 	}
 
 	public FluentList<E> sortBy(Object closure) throws EnumeratingException {
+		Closure keyGenerator = convertToClosure(closure);
+		FluentList<E> ret = toList();
+		Object[] elements = ret.toArray();
+		Object[] keys = new Object[elements.length];
+		try {
+			for (int i = 0; i < elements.length; i++) {
+				keys[i] = keyGenerator.call(elements[i]);
+			}
+			KeySort.sort(keys, elements);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		for (int i = 0; i < elements.length; i++) {
+			E e = as(elements[i]);
+			ret.set(i, e);
+		}
+		return ret;
+	}
+
+	public FluentList<E> parallelSort() throws EnumeratingException {
+		FluentList<E> list = toList();
+		parallelSort(list, new ComparableComparator<E>());
+		return list;
+	}
+
+	public FluentList<E> parallelSort(Object closure) throws EnumeratingException {
+		Comparator<E> comparator = convertToClosure(closure).toInteface(Comparator.class);
+		FluentList<E> list = toList();
+		parallelSort(list, comparator);
+		return list;
+	}
+
+	public FluentList<E> parallelSortBy(Object closure) throws EnumeratingException {
 		Closure keyGenerator = convertToClosure(closure);
 		try {
 			List<Pair<Object, E>> middle = new ArrayList<Pair<Object, E>>();
@@ -216,18 +309,41 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 				Pair<Object, E> pair = new Pair<Object, E>(keyGenerator.call(e), e);
 				middle.add(pair);
 			}
-			Comparator<Pair<Object, E>> compartor = pairComparator();
-			Collections.sort(middle, compartor);
+			parallelSort(middle, pairComparator());
 			FluentList<E> ret = new Sequence<E>();
 			for (Pair<Object, E> pair : middle) {
 				ret.add(pair.second);
 			}
 			return ret;
+		} catch (EnumeratingException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new EnumeratingException(e);
 		}
 	}
 
+	public Enumerable<E> externalSort(ElementCodec<E> codec, int maxElementsInMemory)
+			throws EnumeratingException {
+		ExternalSort<E> sort = new ExternalSort<E>(this, null, null, codec,
+				maxElementsInMemory);
+		return asEnum("externalSort", maxElementsInMemory, sort);
+	}
+
+	public Enumerable<E> externalSort(Object closure, ElementCodec<E> codec,
+			int maxElementsInMemory) throws EnumeratingException {
+		Comparator<E> comparator = convertToClosure(closure).toInteface(Comparator.class);
+		ExternalSort<E> sort = new ExternalSort<E>(this, null, comparator, codec,
+				maxElementsInMemory);
+		return asEnum("externalSort", new Object[] {closure, maxElementsInMemory}, sort);
+	}
+
+	public Enumerable<E> externalSortBy(Object closure, ElementCodec<E> codec,
+			int maxElementsInMemory) throws EnumeratingException {
+		ExternalSort<E> sort = new ExternalSort<E>(this, convertToClosure(closure), null,
+				codec, maxElementsInMemory);
+		return asEnum("externalSortBy", new Object[] {closure, maxElementsInMemory}, sort);
+	}
+
 	public FluentList<E> toList() {
 		return new Sequence<E>(this);
 	}
@@ -259,7 +375,26 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 	public <V> Enumerable<Entry<E, V>> imapWithKeys(Object closure) {
 		Closure function = convertToClosure(closure);
 		LazyMapWithKeys<E, V> iterable = new LazyMapWithKeys<E, V>(this, function);
-		return new Enumerator<Entry<E, V>>(iterable);
+		return this.<Entry<E, V>>asEnum("imapWithKeys", closure, iterable);
+	}
+
+	public <K> FluentMap<K, FluentList<E>> groupBy(Object closure)
+			throws EnumeratingException {
+		return new Grouping<E>(this).groupBy(convertToClosure(closure));
+	}
+
+	public <K, R> FluentMap<K, R> groupBy(Object closure, Aggregator<R> aggregator)
+			throws EnumeratingException {
+		return new Grouping<E>(this).groupBy(convertToClosure(closure), aggregator);
+	}
+
+	public <K> FluentMap<K, Integer> countBy(Object closure) throws EnumeratingException {
+		return new Grouping<E>(this).countBy(convertToClosure(closure));
+	}
+
+	public Pair<FluentList<E>, FluentList<E>> partition(Object closure)
+			throws EnumeratingException {
+		return new Grouping<E>(this).partition(convertToPredicate(closure));
 	}
 
 	public E reduce(Object closure) throws EnumeratingException {
@@ -282,6 +417,43 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 		return reduce(initial, closure);
 	}
 
+	public <T> T parallelReduce(T identity, Object accumulator, Object combiner)
+			throws EnumeratingException {
+		List<E> elements = asRandomAccessList();
+		if (elements == null) {
+			elements = toList();
+		}
+		return new ParallelReduction<E, T>(elements, identity,
+				convertToClosure(accumulator), convertToClosure(combiner)).reduce();
+	}
+
+	public <T> T parallelInject(T identity, Object accumulator, Object combiner)
+			throws EnumeratingException {
+		return parallelReduce(identity, accumulator, combiner);
+	}
+
+	public FluentList<Object> aggregate(Aggregator<?>... aggregators)
+			throws EnumeratingException {
+		List<Aggregator<?>> copies = new ArrayList<Aggregator<?>>(aggregators.length);
+		for (Aggregator<?> aggregator : aggregators) {
+			copies.add(aggregator.emptyCopy());
+		}
+		try {
+			for (E e : iterator()) {
+				for (Aggregator<?> aggregator : copies) {
+					aggregator.add(e);
+				}
+			}
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		FluentList<Object> ret = new Sequence<Object>();
+		for (Aggregator<?> aggregator : copies) {
+			ret.add(aggregator.result());
+		}
+		return ret;
+	}
+
 	public FluentList<E> take(int n) throws EnumeratingException {
 		return itake(n).toList();
 	}
@@ -292,7 +464,33 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 			throw new IllegalArgumentException("Cannot take negative ammount of elements:"
 					+ n);
 		}
-		return asEnum(new LimitedIterator<E>(n, this));
+		return asEnum("itake", n, new LimitedIterator<E>(n, this));
+	}
+
+	public FluentList<E> skip(int n) throws EnumeratingException {
+		return iskip(n).toList();
+	}
+
+	public Enumerable<E> iskip(int n) throws EnumeratingException {
+		return asEnum("iskip", n, new LazySkip<E>(this, asRandomAccessList(), n));
+	}
+
+	public FluentList<E> takeWhile(Object closure) throws EnumeratingException {
+		return itakeWhile(closure).toList();
+	}
+
+	public Enumerable<E> itakeWhile(Object closure) throws EnumeratingException {
+		Predicate predicate = convertToPredicate(closure);
+		return asEnum("itakeWhile", closure, new LazyWhile<E>(this, predicate, true));
+	}
+
+	public FluentList<E> dropWhile(Object closure) throws EnumeratingException {
+		return idropWhile(closure).toList();
+	}
+
+	public Enumerable<E> idropWhile(Object closure) throws EnumeratingException {
+		Predicate predicate = convertToPredicate(closure);
+		return asEnum("idropWhile", closure, new LazyWhile<E>(this, predicate, false));
 	}
 
 	public E any() throws EnumeratingException {
@@ -329,6 +527,207 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 		return getMax(closure, reverse(new ComparableComparator<Object>()));
 	}
 
+	public FluentList<E> maxN(int n) throws EnumeratingException {
+		return greatest(n, null, new ComparableComparator<Object>());
+	}
+
+	public FluentList<E> minN(int n) throws EnumeratingException {
+		return greatest(n, null, reverse(new ComparableComparator<Object>()));
+	}
+
+	public FluentList<E> topBy(int n, Object closure) throws EnumeratingException {
+		return greatest(n, convertToClosure(closure), new ComparableComparator<Object>());
+	}
+
+	public FluentList<E> bottomBy(int n, Object closure) throws EnumeratingException {
+		Closure keyGenerator = convertToClosure(closure);
+		return greatest(n, keyGenerator, reverse(new ComparableComparator<Object>()));
+	}
+
+	public E nth(int k) throws EnumeratingException {
+		List<Object> elements = as(toList());
+		return Selection.<E>select(elements, elements, new ComparableComparator<Object>(), k)
+				.get(0);
+	}
+
+	public E nthBy(int k, Object closure) throws EnumeratingException {
+		Closure keyGenerator = convertToClosure(closure);
+		List<Object> elements = as(toList());
+		List<Object> keys = new ArrayList<Object>(elements.size());
+		try {
+			for (Object e : elements) {
+				keys.add(keyGenerator.call(e));
+			}
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		return Selection.<E>select(keys, elements, new ComparableComparator<Object>(), k)
+				.get(0);
+	}
+
+	public E median() throws EnumeratingException {
+		return percentiles(MEDIAN).get(0);
+	}
+
+	public FluentList<E> percentiles(double... percentiles) throws EnumeratingException {
+		List<Object> elements = as(toList());
+		return selectPercentiles(elements, percentiles);
+	}
+
+	public FluentList<E> sample(int n) throws EnumeratingException {
+		return Reservoir.sample(this, asRandomAccessList(), n, new Random());
+	}
+
+	public FluentList<E> sample(int n, long seed) throws EnumeratingException {
+		return Reservoir.sample(this, asRandomAccessList(), n, new Random(seed));
+	}
+
+	public FluentList<E> weightedSample(int n, Object closure) throws EnumeratingException {
+		return Reservoir.weightedSample(this, n, convertToClosure(closure), new Random());
+	}
+
+	public FluentList<E> weightedSample(int n, Object closure, long seed)
+			throws EnumeratingException {
+		return Reservoir.weightedSample(this, n, convertToClosure(closure), new Random(seed));
+	}
+
+	public Enumerable<E> idistinct() throws EnumeratingException {
+		return idistinct(false);
+	}
+
+	public Enumerable<E> idistinct(boolean sortedInput) throws EnumeratingException {
+		return asEnum("idistinct", null, new LazyDistinct<E>(this, null, sortedInput));
+	}
+
+	public Enumerable<E> iuniqBy(Object closure) throws EnumeratingException {
+		return iuniqBy(closure, false);
+	}
+
+	public Enumerable<E> iuniqBy(Object closure, boolean sortedInput)
+			throws EnumeratingException {
+		Closure keyGenerator = convertToClosure(closure);
+		return asEnum("iuniqBy", closure, new LazyDistinct<E>(this, keyGenerator, sortedInput));
+	}
+
+	public FluentList<FluentList<E>> batch(int n) throws EnumeratingException {
+		return ibatch(n).toList();
+	}
+
+	public Enumerable<FluentList<E>> ibatch(int n) throws EnumeratingException {
+		return ibatch(n, false);
+	}
+
+	public Enumerable<FluentList<E>> ibatch(int n, boolean reuseBuffer)
+			throws EnumeratingException {
+		return asEnum("ibatch", n, new LazyBatch<E>(this, n, reuseBuffer));
+	}
+
+	public FluentList<FluentList<E>> eachSlice(int n) throws EnumeratingException {
+		return batch(n);
+	}
+
+	public Enumerable<FluentList<E>> ieachSlice(int n) throws EnumeratingException {
+		return ibatch(n);
+	}
+
+	public Enumerable<FluentList<E>> islidingWindow(int size, int step)
+			throws EnumeratingException {
+		LazyWindow<E, FluentList<E>> windows = new LazyWindow<E, FluentList<E>>(this, size,
+				step, null);
+		return asEnum("islidingWindow", new Object[] {size, step}, windows);
+	}
+
+	public <R> Enumerable<R> islidingWindow(int size, int step,
+			WindowAggregator<R> aggregator) throws EnumeratingException {
+		LazyWindow<E, R> windows = new LazyWindow<E, R>(this, size, step, aggregator);
+		return asEnum("islidingWindow", new Object[] {size, step, aggregator}, windows);
+	}
+
+	public Enumerable<FluentList<E>> itumblingWindow(int size) throws EnumeratingException {
+		LazyWindow<E, FluentList<E>> windows = new LazyWindow<E, FluentList<E>>(this, size,
+				size, null);
+		return asEnum("itumblingWindow", size, windows);
+	}
+
+	public <R> Enumerable<R> itumblingWindow(int size, Aggregator<R> aggregator)
+			throws EnumeratingException {
+		LazyWindow<E, R> windows = new LazyWindow<E, R>(this, size, size, aggregator);
+		return asEnum("itumblingWindow", new Object[] {size, aggregator}, windows);
+	}
+
+	public <T> FluentList<T> flatMap(Object closure) throws EnumeratingException {
+		return this.<T>iflatMap(closure).toList();
+	}
+
+	public <T> Enumerable<T> iflatMap(Object closure) throws EnumeratingException {
+		Closure function = convertToClosure(closure);
+		return asEnum("iflatMap", closure, new LazyFlatten<T>(this, function, 1));
+	}
+
+	public <T> Enumerable<T> iflatten() throws EnumeratingException {
+		return iflatten(LazyFlatten.UNLIMITED_DEPTH);
+	}
+
+	public <T> Enumerable<T> iflatten(int depth) throws EnumeratingException {
+		return asEnum("iflatten", depth, new LazyFlatten<T>(this, null, depth));
+	}
+
+	public Enumerable<E> cache() throws EnumeratingException {
+		return new CachingEnumerable<E>(this);
+	}
+
+	public Enumerable<E> memoize() throws EnumeratingException {
+		return cache();
+	}
+
+	public FluentList<Enumerable<E>> tee(int branches) throws EnumeratingException {
+		return tee(branches, Tee.DEFAULT_BUFFER_SIZE);
+	}
+
+	public FluentList<Enumerable<E>> tee(int branches, int bufferSize)
+			throws EnumeratingException {
+		return new Tee<E>(this, branches, bufferSize).branches();
+	}
+
+	public FluentList<Object> multicast(Object... consumers) throws EnumeratingException {
+		return multicast(asList(consumers), Tee.DEFAULT_BUFFER_SIZE);
+	}
+
+	public FluentList<Object> multicast(Iterable<?> consumers, int bufferSize)
+			throws EnumeratingException {
+		List<Closure> closures = new ArrayList<Closure>();
+		for (Object consumer : consumers) {
+			closures.add(convertToClosure(consumer));
+		}
+		return new Tee<E>(this, closures.size(), bufferSize).multicast(closures);
+	}
+
+	public Enumerable<E> profile() {
+		return Stage.profiled(this);
+	}
+
+	public String explain() {
+		StringBuilder ret = new StringBuilder();
+		explain(this, "", ret, new IdentityHashMap<Object, Boolean>());
+		return ret.toString();
+	}
+
+	public ZipCursor zipCursor(Iterable<?>... others) throws EnumeratingException {
+		return new ZipCursor(zipSources(others));
+	}
+
+	public <T> FluentList<T> zipWith(Object closure, Iterable<?>... others)
+			throws EnumeratingException {
+		return this.<T>izipWith(closure, others).toList();
+	}
+
+	public <T> Enumerable<T> izipWith(Object closure, Iterable<?>... others)
+			throws EnumeratingException {
+		Closure function = convertToClosure(closure);
+		LazyZipWith<T> operation = new LazyZipWith<T>(function, zipSources(others));
+		return asEnum("izipWith", closure, operation, others);
+	}
+
 	/*
 	 * Other Methods
 	 */
@@ -354,6 +753,51 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 		return ClosureCoercion.toPredicate(closure);
 	}
 	
+	/**
+	 * Returns a {@link RandomAccess} list with the elements of this enumerable, without
+	 * copying them, or null if there is no such list. Operations that can jump straight to
+	 * an index use it as a fast path. By default, returns null.
+	 * 
+	 * @return
+	 */
+	protected List<E> asRandomAccessList() {
+		return null;
+	}
+
+	/**
+	 * Lazily returns the elements for which the predicate evaluates true. Overridden by
+	 * lazy filters, to merge the predicate into them.
+	 * 
+	 * @param name
+	 * The lazy method filtering, for {@link #explain()}.
+	 * @param closure
+	 * The closure given to it.
+	 * @param predicate
+	 * @return
+	 */
+	Enumerable<E> filter(String name, Object closure, Predicate predicate) {
+		return asEnum(name, closure, new ConjunctiveFilter<E>(this, predicate));
+	}
+
+	/**
+	 * The iterables whose elements this enumerable is made from, if any. By default, none.
+	 * 
+	 * @return
+	 */
+	Iterable<?>[] upstream() {
+		return new Iterable<?>[0];
+	}
+
+	/**
+	 * One line description of this enumerable for {@link #explain()}. By default, the
+	 * name of its class.
+	 * 
+	 * @return
+	 */
+	String describe() {
+		return getClass().getSimpleName();
+	}
+
 	private E getMax(Object valueFunction, Comparator<?> comparatorOfValue) {
 		ExtendedIterator<E> it = iterator();
 		if (!it.hasNext()) {
@@ -405,185 +849,110 @@ public abstract class AbstractEnumerable<E> implements Enumerable<E> {
 		}
 	}
 
-	private Comparator<Pair<Object, E>> pairComparator() {
-		final Comparator<Object> c = new ComparableComparator<Object>();
-		return new Comparator<Pair<Object, E>>() {
-			@Override
-			public int compare(Pair<Object, E> o1, Pair<Object, E> o2) {
-				return c.compare(o1.first, o2.first);
-			}
-		};
+	private <R> HashJoin<E, R> hashJoin(Iterable<R> right, Object leftKey, Object rightKey,
+			JoinSide buildSide) {
+		return new HashJoin<E, R>(this, right, convertToClosure(leftKey),
+				convertToClosure(rightKey), buildSide);
 	}
 
-	private <T> Enumerable<T> asEnum(Iterable<T> iterable) {
-		return FluentUtils.<T>asEnumerable(iterable);
+	private FluentList<E> greatest(int n, Closure keyGenerator, Comparator<Object> comparator) {
+		BoundedHeap<E> heap = new BoundedHeap<E>(n, comparator);
+		return heap.offerAll(this, keyGenerator).drainGreatestFirst();
 	}
 
-	/*
-	 * Helper Classes
-	 */
 	/**
-	 * Utility class to implement {@link Enumerable#iselect(Object)} and
-	 * {@link Enumerable#ireject(Object)}.
-	 * 
-	 * @param <E>
+	 * Selects the percentiles of the list, by natural order, reordering it. Nulls if it
+	 * is empty.
 	 */
-	private static class LazySelect<E> implements ExtendedIterable<E> {
-		private Iterable<E> iterable;
-		private Predicate predicate;
-
-		public LazySelect(Iterable<E> iterable, Predicate predicate) {
-			this.iterable = iterable;
-			this.predicate = predicate;
-		}
-
-		private boolean eval(Object arg) {
-			try {
-				return predicate.eval(arg);
-			} catch (Exception e) {
-				throw new EnumeratingException(e);
+	static <E> FluentList<E> selectPercentiles(List<Object> list, double... percentiles) {
+		int[] positions = Selection.percentilePositions(list.size(), percentiles);
+		if (list.isEmpty()) {
+			FluentList<E> ret = new Sequence<E>();
+			for (int i = 0; i < positions.length; i++) {
+				ret.add(null);
 			}
+			return ret;
 		}
+		return Selection.select(list, list, new ComparableComparator<Object>(), positions);
+	}
 
-		@Override
-		public ExtendedIterator<E> iterator() {
-			return new LazySelectIterator();
+	/**
+	 * Like {@link Collections#sort(List, Comparator)}, with {@link ParallelMergeSort}.
+	 */
+	private static <T> void parallelSort(List<T> list, Comparator<? super T> comparator) {
+		T[] array = as(list.toArray());
+		ParallelMergeSort.sort(array, comparator);
+		for (int i = 0; i < array.length; i++) {
+			list.set(i, array[i]);
 		}
+	}
 
-		private class LazySelectIterator extends AbstractExtendedIterator<E> {
-			private Iterator<E> it;
-			private E lookAhead;
-
-			public LazySelectIterator() {
-				it = iterable.iterator();
-				lookAhead = findNextThatEvalsTrue();
-			}
-
-			private E findNextThatEvalsTrue() {
-				while (it.hasNext()) {
-					E ret = it.next();
-					if (eval(ret)) {
-						return ret;
-					}
-				}
-				return null;
-			}
-
-			@Override
-			public boolean hasNext() {
-				return lookAhead != null;
-			}
-
+	private Comparator<Pair<Object, E>> pairComparator() {
+		final Comparator<Object> c = new ComparableComparator<Object>();
+		return new Comparator<Pair<Object, E>>() {
 			@Override
-			public E next() {
-				if (lookAhead == null) {
-					throw new NoSuchElementException();
-				}
-				E ret = lookAhead;
-				lookAhead = findNextThatEvalsTrue();
-				return ret;
+			public int compare(Pair<Object, E> o1, Pair<Object, E> o2) {
+				return c.compare(o1.first, o2.first);
 			}
-
-		}
-
+		};
 	}
 
 	/**
-	 * Utility class for {@link Enumerable#map(Object)}.
-	 * 
-	 * @param <E>
-	 * @param <R>
+	 * Self followed by the others, using the random access list behind self, if any.
 	 */
-	private static class LazyMap<E, R> implements ExtendedIterable<R> {
-		private Iterable<E> iterable;
-		private Closure function;
-
-		public LazyMap(Iterable<E> iterable, Closure function) {
-			this.iterable = iterable;
-			this.function = function;
-		}
-
-		private R call(Object arg) {
-			try {
-				return function.<R>invoke(arg);
-			} catch (Exception e) {
-				throw new EnumeratingException(e);
-			}
-		}
-
-		@Override
-		public ExtendedIterator<R> iterator() {
-			return new LazyMapIterator();
+	private Iterable<?>[] zipSources(Iterable<?>... others) {
+		Iterable<?>[] sources = new Iterable<?>[others.length + 1];
+		List<E> list = asRandomAccessList();
+		if (list != null) {
+			sources[0] = list;
 		}
-
-		private class LazyMapIterator extends AbstractExtendedIterator<R> {
-			private Iterator<E> it;
-
-			public LazyMapIterator() {
-				it = iterable.iterator();
-			}
-
-			@Override
-			public boolean hasNext() {
-				return it.hasNext();
-			}
-
-			@Override
-			public R next() {
-				return call(it.next());
-
-			}
+		else {
+			sources[0] = this;
 		}
+		System.arraycopy(others, 0, sources, 1, others.length);
+		return sources;
 	}
 
 	/**
-	 * Utility class for {@link Enumerable#mapWithKeys(Object)}.
-	 * 
-	 * @param <E>
-	 * @param <R>
+	 * Appends the line of the iterable, followed by the ones of its upstream, unless it is
+	 * a collection or was already explained.
 	 */
-	private static class LazyMapWithKeys<E, R> implements ExtendedIterable<Pair<E, R>> {
-		private Iterable<E> iterable;
-		private Closure function;
-
-		public LazyMapWithKeys(Iterable<E> iterable, Closure function) {
-			this.iterable = iterable;
-			this.function = function;
-		}
-
-		@SuppressWarnings("unchecked")
-		private Pair<E, R> call(Object arg) {
-			try {
-				E realArg = (E) arg;
-				R result = function.<R>invoke(realArg);
-				return new Pair<E, R>(realArg, result);
-			} catch (Exception e) {
-				throw new EnumeratingException(e);
+	private static void explain(Iterable<?> iterable, String indent, StringBuilder ret,
+			IdentityHashMap<Object, Boolean> explained) {
+		ret.append(indent);
+		if (!(iterable instanceof AbstractEnumerable<?>)) {
+			String name = iterable.getClass().getSimpleName();
+			if (name.length() == 0) {
+				name = iterable.getClass().getName();
 			}
+			ret.append(name).append('\n');
+			return;
 		}
-
-		@Override
-		public ExtendedIterator<Pair<E, R>> iterator() {
-			return new LazyMapIterator();
+		AbstractEnumerable<?> enumerable = (AbstractEnumerable<?>) iterable;
+		ret.append(enumerable.describe());
+		if (explained.containsKey(enumerable)) {
+			ret.append(" (see above)\n");
+			return;
 		}
-
-		private class LazyMapIterator extends AbstractExtendedIterator<Pair<E, R>> {
-			private Iterator<E> it;
-
-			public LazyMapIterator() {
-				it = iterable.iterator();
-			}
-
-			@Override
-			public boolean hasNext() {
-				return it.hasNext();
-			}
-
-			@Override
-			public Pair<E, R> next() {
-				return call(it.next());
-
-			}
+		explained.put(enumerable, true);
+		ret.append('\n');
+		if (enumerable instanceof Collection<?> || enumerable instanceof Map<?, ?>) {
+			return;
+		}
+		for (Iterable<?> each : enumerable.upstream()) {
+			explain(each, indent + "  ", ret, explained);
 		}
 	}
+
+	/**
+	 * Wraps a lazy operation, made by the named method, that reads from self and from the
+	 * others.
+	 */
+	private <T> Enumerable<T> asEnum(String name, Object argument,
+			Iterable<? extends T> operation, Iterable<?>... others) {
+		Iterable<?>[] upstream = new Iterable<?>[others.length + 1];
+		upstream[0] = this;
+		System.arraycopy(others, 0, upstream, 1, others.length);
+		return new Stage<T>(name, argument, operation, upstream);
+	}
 }
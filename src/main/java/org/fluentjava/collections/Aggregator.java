@@ -0,0 +1,55 @@
+package org.fluentjava.collections;
+
+import org.fluentjava.Aggregators;
+
+/**
+ * Accumulates elements one at a time into a single result, such as a count, a sum or a
+ * minimum. Several aggregators can be fed in the same traversal by
+ * {@link Enumerable#aggregate(Aggregator...)}. Aggregators are stateful, so each
+ * traversal works on a copy given by {@link #emptyCopy()}, and the same aggregator can be
+ * used as a specification several times.
+ * 
+ * Instead of subclassing this class, try using {@link Aggregators} static methods.
+ * 
+ * @param <R>
+ * Type of the result.
+ */
+public abstract class Aggregator<R> {
+
+	/**
+	 * Accumulates one element.
+	 * 
+	 * @param element
+	 * @throws Exception
+	 */
+	public abstract void add(Object element) throws Exception;
+
+	/**
+	 * The result of all elements accumulated so far.
+	 * 
+	 * @return
+	 */
+	public abstract R result();
+
+	/**
+	 * Returns a new aggregator, configured as this one, but without any element
+	 * accumulated.
+	 * 
+	 * @return
+	 */
+	public abstract Aggregator<R> emptyCopy();
+
+	/**
+	 * Accumulates everything that other has accumulated, as if its elements were added
+	 * after the ones of this aggregator. Other must be a copy of this aggregator (that is:
+	 * obtained from {@link #emptyCopy()}). By default, aggregators cannot be merged.
+	 * 
+	 * @param other
+	 * @throws UnsupportedOperationException
+	 * If this aggregator cannot be merged.
+	 */
+	public void merge(Aggregator<R> other) {
+		throw new UnsupportedOperationException(getClass().getName()
+				+ " cannot be merged");
+	}
+}
@@ -0,0 +1,279 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.closures.ClosureCoercion;
+import org.fluentjava.closures.Predicate;
+
+/**
+ * Probabilistic set: answers whether it contains an element in a few bits per element,
+ * however large the elements are, but may answer true for some elements never inserted,
+ * with the false positive rate it was created for. It never answers false for an element
+ * inserted. Elements cannot be removed nor iterated, so it only has the read side of a
+ * {@link FluentSet}: contains, containsAll, containsAny and isEmpty.
+ *
+ * Each element sets k bits of an array of m bits, chosen by double hashing of its
+ * hashCode, spread to 64 bits. For n expected elements and a false positive rate p,
+ * m = -n ln(p) / ln(2)^2 and k = (m / n) ln(2): about 10 bits and 7 probes per element
+ * for p = 1%. Inserting more elements than expected raises the rate.
+ *
+ * Probing it costs a hash and k random memory accesses, more than a miss on a
+ * {@link java.util.HashMap}. It only pays off in front of an exact structure that is
+ * much more expensive to look up (on disk, remote, or compared slowly), so that most
+ * elements not in it skip the lookup; see {@link #prefilter(Collection)} and
+ * {@link #prefilter(Object, Collection)}, which are never used implicitly.
+ *
+ * @param <E>
+ * Type of elements.
+ */
+public class BloomFilter<E> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/*
+	 * Constants
+	 */
+	private static final double LN2 = Math.log(2);
+	private static final int WORD_SHIFT = 6;
+	private static final long MIX_1 = 0xff51afd7ed558ccdL;
+	private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+	private static final int MIX_SHIFT = 33;
+	private static final long HASH_SEED = 0x9e3779b97f4a7c15L;
+
+	/*
+	 * Variables
+	 */
+	private final long[] words;
+	private final long bits;
+	private final int hashes;
+	private boolean empty = true;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * Creates an empty BloomFilter, sized for the expected amount of elements to have the
+	 * given false positive rate.
+	 *
+	 * @param expectedElements
+	 * @param falsePositiveRate
+	 * Greater than 0 and less than 1.
+	 */
+	public BloomFilter(int expectedElements, double falsePositiveRate) {
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1:"
+					+ falsePositiveRate);
+		}
+		if (expectedElements < 0) {
+			throw new IllegalArgumentException("Cannot expect negative amount of elements:"
+					+ expectedElements);
+		}
+		int n = Math.max(1, expectedElements);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+		this.words = new long[(int) ((m + Long.SIZE - 1) >>> WORD_SHIFT)];
+		this.bits = (long) words.length << WORD_SHIFT;
+		this.hashes = Math.max(1, (int) Math.round((double) bits / n * LN2));
+	}
+
+	/**
+	 * Creates a BloomFilter with the elements of the collection, sized for them to have
+	 * the given false positive rate.
+	 *
+	 * @param collection
+	 * @param falsePositiveRate
+	 * Greater than 0 and less than 1.
+	 */
+	public BloomFilter(Collection<? extends E> collection, double falsePositiveRate) {
+		this(collection.size(), falsePositiveRate);
+		insert(collection);
+	}
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Fluent method (returns self). Adds one element.
+	 *
+	 * @param element
+	 * @return
+	 */
+	public BloomFilter<E> insert(E element) {
+		long hash = hash(element);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> Integer.SIZE);
+		for (int i = 0; i < hashes; i++) {
+			long bit = index(h1, h2, i);
+			words[(int) (bit >>> WORD_SHIFT)] |= 1L << bit;
+		}
+		empty = false;
+		return this;
+	}
+
+	/**
+	 * Fluent method (returns self). Adds all elements on the list.
+	 *
+	 * @param list
+	 * @return
+	 */
+	public BloomFilter<E> insert(E... list) {
+		return insert(asList(list));
+	}
+
+	/**
+	 * Fluent method (returns self). Adds all elements of the iterable.
+	 *
+	 * @param iterable
+	 * @return
+	 */
+	public BloomFilter<E> insert(Iterable<? extends E> iterable) {
+		for (E e : iterable) {
+			insert(e);
+		}
+		return this;
+	}
+
+	/**
+	 * False if the element was never inserted; true if it was, or, with the false
+	 * positive rate, if it was not.
+	 *
+	 * @param o
+	 * @return
+	 */
+	public boolean contains(Object o) {
+		long hash = hash(o);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> Integer.SIZE);
+		for (int i = 0; i < hashes; i++) {
+			long bit = index(h1, h2, i);
+			if ((words[(int) (bit >>> WORD_SHIFT)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether it may contain all the elements, see {@link #contains(Object)}.
+	 *
+	 * @param c
+	 * @return
+	 */
+	public boolean containsAll(Collection<?> c) {
+		for (Object o : c) {
+			if (!contains(o)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean containsAll(E... list) {
+		return containsAll(asList(list));
+	}
+
+	/**
+	 * Whether it may contain any of the elements, see {@link #contains(Object)}.
+	 *
+	 * @param c
+	 * @return
+	 */
+	public boolean containsAny(Collection<?> c) {
+		for (Object o : c) {
+			if (contains(o)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean containsAny(E... list) {
+		return containsAny(asList(list));
+	}
+
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Estimates how many distinct elements were inserted, from the amount of bits set.
+	 *
+	 * @return
+	 */
+	public long approximateSize() {
+		long set = 0;
+		for (long word : words) {
+			set += Long.bitCount(word);
+		}
+		if (set == bits) {
+			return Long.MAX_VALUE;
+		}
+		return Math.round(-(double) bits / hashes * Math.log(1 - (double) set / bits));
+	}
+
+	/**
+	 * Predicate of being in the exact collection, which looks it up only for elements this
+	 * filter may contain. The filter must have every element of the collection, so that
+	 * the predicate is exact. For instance, with a huge set of ids behind a slow lookup,
+	 * list.select(filter.prefilter(ids)) only looks up the ids that pass the filter.
+	 *
+	 * @param exact
+	 * @return
+	 */
+	public Predicate prefilter(final Collection<?> exact) {
+		return new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				Object element = first(args);
+				return contains(element) && exact.contains(element);
+			}
+		};
+	}
+
+	/**
+	 * Like {@link #prefilter(Collection)}, for the key the closure returns for each
+	 * element. For instance, to join orders with customers kept behind a slow lookup,
+	 * orders.iselect(filter.prefilter("getCustomerId", customerIds)).join(...) drops most
+	 * orders without a customer before the join looks them up.
+	 *
+	 * @param closure
+	 * @param exact
+	 * @return
+	 */
+	public Predicate prefilter(Object closure, final Collection<?> exact) {
+		final Closure keyGenerator = ClosureCoercion.toClosure(closure);
+		return new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				Object key = keyGenerator.call(args);
+				return contains(key) && exact.contains(key);
+			}
+		};
+	}
+
+	/*
+	 * Other Methods
+	 */
+	/**
+	 * The i-th bit of an element, by double hashing.
+	 */
+	private long index(int h1, int h2, int i) {
+		long combined = h1 + (long) i * h2;
+		return (combined & Long.MAX_VALUE) % bits;
+	}
+
+	/**
+	 * The hashCode, spread to 64 bits by the finalizer of MurmurHash3.
+	 */
+	private static long hash(Object o) {
+		long ret = HASH_SEED;
+		if (o != null) {
+			ret ^= o.hashCode();
+		}
+		ret = (ret ^ (ret >>> MIX_SHIFT)) * MIX_1;
+		ret = (ret ^ (ret >>> MIX_SHIFT)) * MIX_2;
+		return ret ^ (ret >>> MIX_SHIFT);
+	}
+}
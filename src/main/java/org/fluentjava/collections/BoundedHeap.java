@@ -0,0 +1,209 @@
+package org.fluentjava.collections;
+
+import java.util.Comparator;
+
+import org.fluentjava.closures.Closure;
+
+/**
+ * Keeps the n greatest elements offered to it, according to a comparator of keys, using a
+ * binary heap of at most n entries whose root is the least of them. Offering an element
+ * costs O(log n) at most, and nothing is allocated per element. Among equal keys, the
+ * first offered elements win, so the results agree with a stable sort.
+ * 
+ * Implements {@link Enumerable#maxN(int)} and the like.
+ * 
+ * @param <E>
+ * Type of elements.
+ */
+class BoundedHeap<E> {
+	/*
+	 * Constants
+	 */
+	private static final int INITIAL_LENGTH = 16;
+
+	/*
+	 * Variables
+	 */
+	private final Comparator<Object> comparator;
+	private final int capacity;
+	private Object[] keys;
+	private Object[] elements;
+	private long[] order;
+	private int size;
+	private long offered;
+
+	/*
+	 * Constructors
+	 */
+	BoundedHeap(int capacity, Comparator<Object> comparator) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Cannot keep negative ammount of elements:"
+					+ capacity);
+		}
+		this.comparator = comparator;
+		this.capacity = capacity;
+		int length = Math.min(capacity, INITIAL_LENGTH);
+		this.keys = new Object[length];
+		this.elements = new Object[length];
+		this.order = new long[length];
+	}
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Offers all elements of the iterable, using the key generator (if not null) to obtain
+	 * their keys. Otherwise, elements are their own keys.
+	 * 
+	 * @param iterable
+	 * @param keyGenerator
+	 * @return self
+	 */
+	BoundedHeap<E> offerAll(Iterable<E> iterable, Closure keyGenerator) {
+		if (capacity == 0) {
+			return this;
+		}
+		try {
+			for (E e : iterable) {
+				Object key = e;
+				if (keyGenerator != null) {
+					key = keyGenerator.call(e);
+				}
+				offer(key, e);
+			}
+			return this;
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	void offer(Object key, E element) {
+		long position = offered++;
+		if (size < capacity) {
+			if (size == keys.length) {
+				grow();
+			}
+			set(size, key, element, position);
+			siftUp(size++);
+		}
+		else if (comparator.compare(key, keys[0]) > 0) {
+			set(0, key, element, position);
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * Whether it already keeps as many elements as it can.
+	 * 
+	 * @return
+	 */
+	boolean isFull() {
+		return size == capacity;
+	}
+
+	/**
+	 * The least key kept, the one the next offered key has to beat once it is full.
+	 * 
+	 * @return
+	 */
+	Object leastKey() {
+		return keys[0];
+	}
+
+	/**
+	 * Empties the heap, returning the elements from the greatest to the least.
+	 * 
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	FluentList<E> drainGreatestFirst() {
+		Object[] ret = new Object[size];
+		while (size > 0) {
+			ret[size - 1] = elements[0];
+			size--;
+			set(0, keys[size], elements[size], order[size]);
+			keys[size] = null;
+			elements[size] = null;
+			siftDown(0);
+		}
+		FluentList<E> list = new Sequence<E>();
+		for (Object e : ret) {
+			list.add((E) e);
+		}
+		return list;
+	}
+
+	/*
+	 * Other Methods
+	 */
+	/**
+	 * Doubles the arrays, up to the capacity, so that a large capacity costs nothing
+	 * until that many elements are offered.
+	 */
+	private void grow() {
+		int length = (int) Math.min(capacity, 2L * keys.length);
+		Object[] newKeys = new Object[length];
+		Object[] newElements = new Object[length];
+		long[] newOrder = new long[length];
+		System.arraycopy(keys, 0, newKeys, 0, size);
+		System.arraycopy(elements, 0, newElements, 0, size);
+		System.arraycopy(order, 0, newOrder, 0, size);
+		keys = newKeys;
+		elements = newElements;
+		order = newOrder;
+	}
+
+	private void set(int i, Object key, Object element, long position) {
+		keys[i] = key;
+		elements[i] = element;
+		order[i] = position;
+	}
+
+	private boolean less(int i, int j) {
+		int cmp = comparator.compare(keys[i], keys[j]);
+		if (cmp != 0) {
+			return cmp < 0;
+		}
+		return order[i] > order[j];
+	}
+
+	private void swap(int i, int j) {
+		Object key = keys[i];
+		Object element = elements[i];
+		long position = order[i];
+		set(i, keys[j], elements[j], order[j]);
+		set(j, key, element, position);
+	}
+
+	private void siftUp(int i) {
+		int child = i;
+		while (child > 0) {
+			int parent = (child - 1) / 2;
+			if (!less(child, parent)) {
+				return;
+			}
+			swap(child, parent);
+			child = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		int parent = i;
+		while (true) {
+			int least = parent;
+			int left = 2 * parent + 1;
+			int right = left + 1;
+			if (left < size && less(left, least)) {
+				least = left;
+			}
+			if (right < size && less(right, least)) {
+				least = right;
+			}
+			if (least == parent) {
+				return;
+			}
+			swap(parent, least);
+			parent = least;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package org.fluentjava.collections;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.fluentjava.iterators.AbstractExtendedIterator;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Implements {@link Enumerable#cache()}: elements are read from the source only once, as
+ * the first iteration reaching them asks for them, and replayed from a list afterwards.
+ * Every iteration first checks the {@link TracksModifications} collections the source is
+ * made from, found by walking back its pipeline of lazy methods, and starts over if any
+ * was modified. Iterators created before that throw a
+ * {@link ConcurrentModificationException}.
+ *
+ * @param <E>
+ */
+class CachingEnumerable<E> extends AbstractEnumerable<E> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> source;
+	private final List<TracksModifications> dependencies;
+	private final long[] stamps;
+	private List<E> cached = new ArrayList<E>();
+	private Iterator<E> pending;
+	private boolean complete;
+	private int generation;
+
+	/*
+	 * Constructors
+	 */
+	CachingEnumerable(Iterable<E> source) {
+		this.source = source;
+		this.dependencies = new ArrayList<TracksModifications>();
+		collectDependencies(source, new IdentityHashMap<Object, Boolean>());
+		this.stamps = new long[dependencies.size()];
+		stamp();
+	}
+
+	/*
+	 * Public Methods
+	 */
+	@Override
+	public ExtendedIterator<E> iterator() {
+		if (isStale()) {
+			cached = new ArrayList<E>();
+			pending = null;
+			complete = false;
+			generation++;
+			stamp();
+		}
+		return new CachingIterator();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	@Override
+	Iterable<?>[] upstream() {
+		return new Iterable<?>[] {source};
+	}
+
+	@Override
+	String describe() {
+		return "cache()";
+	}
+
+	private void collectDependencies(Object iterable, IdentityHashMap<Object, Boolean> seen) {
+		if (seen.containsKey(iterable)) {
+			return;
+		}
+		seen.put(iterable, true);
+		if (iterable instanceof TracksModifications) {
+			dependencies.add((TracksModifications) iterable);
+		}
+		else if (iterable instanceof AbstractEnumerable<?>) {
+			for (Iterable<?> each : ((AbstractEnumerable<?>) iterable).upstream()) {
+				collectDependencies(each, seen);
+			}
+		}
+	}
+
+	private void stamp() {
+		for (int i = 0; i < stamps.length; i++) {
+			stamps[i] = dependencies.get(i).modificationStamp();
+		}
+	}
+
+	private boolean isStale() {
+		for (int i = 0; i < stamps.length; i++) {
+			if (stamps[i] != dependencies.get(i).modificationStamp()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads one more element from the source into the cache.
+	 *
+	 * @return false if there are no more.
+	 */
+	private boolean fetch() {
+		if (complete) {
+			return false;
+		}
+		if (pending == null) {
+			pending = source.iterator();
+		}
+		if (pending.hasNext()) {
+			cached.add(pending.next());
+			return true;
+		}
+		pending = null;
+		complete = true;
+		return false;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class CachingIterator extends AbstractExtendedIterator<E> {
+		private final int expectedGeneration = generation;
+		private int index;
+
+		public boolean hasNext() {
+			if (expectedGeneration != generation) {
+				throw new ConcurrentModificationException();
+			}
+			return index < cached.size() || fetch();
+		}
+
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return cached.get(index++);
+		}
+	}
+}
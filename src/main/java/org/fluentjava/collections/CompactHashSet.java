@@ -0,0 +1,89 @@
+package org.fluentjava.collections;
+
+/**
+ * Minimal set of seen objects, using open addressing with linear probing on a single
+ * array. Compared to a {@link java.util.HashSet}, no entry object is allocated per element,
+ * which makes it about four times smaller. It can only add and check elements. Null is
+ * supported.
+ */
+class CompactHashSet {
+	/*
+	 * Constants
+	 */
+	private static final Object NULL = new Object();
+	private static final int MINIMUM_CAPACITY = 16;
+
+	/*
+	 * Variables
+	 */
+	private Object[] table = new Object[MINIMUM_CAPACITY];
+	private int size;
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Adds the element, if absent.
+	 * 
+	 * @param element
+	 * @return true if the element was not on the set yet.
+	 */
+	boolean add(Object element) {
+		Object key = mask(element);
+		int i = indexOf(table, key);
+		if (table[i] != null) {
+			return false;
+		}
+		table[i] = key;
+		size++;
+		if (size * 4 >= table.length * 3) {
+			grow();
+		}
+		return true;
+	}
+
+	boolean contains(Object element) {
+		return table[indexOf(table, mask(element))] != null;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private static Object mask(Object element) {
+		if (element == null) {
+			return NULL;
+		}
+		return element;
+	}
+
+	/**
+	 * Index of the key, or of the empty slot where it belongs.
+	 */
+	private static int indexOf(Object[] table, Object key) {
+		int mask = table.length - 1;
+		int i = spread(key.hashCode()) & mask;
+		while (table[i] != null && !table[i].equals(key)) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private static int spread(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void grow() {
+		Object[] old = table;
+		table = new Object[old.length * 2];
+		for (Object key : old) {
+			if (key != null) {
+				table[indexOf(table, key)] = key;
+			}
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+
+import org.fluentjava.closures.Predicate;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#iselect(Object)} and
+ * {@link Enumerable#ireject(Object)}: returns the elements for which all predicates
+ * evaluate true. Consecutive iselect and ireject calls are merged into a single filter.
+ *
+ * While iterating, it measures how often each predicate rejects an element and how long
+ * it takes (timing one element every {@link #SAMPLE_INTERVAL}), and periodically reorders
+ * the predicates by expected cost per rejection, so that cheap and selective predicates
+ * run first. Elements returned are the same as evaluating them in the original order. If
+ * a predicate throws, the element is checked again in the original order, so an
+ * exception is only thrown if it would be thrown without reordering.
+ *
+ * @param <E>
+ */
+class ConjunctiveFilter<E> implements ExtendedIterable<E> {
+	/*
+	 * Constants
+	 */
+	static final int SAMPLE_INTERVAL = 16;
+	static final int REORDER_INTERVAL = 256;
+
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final Predicate[] predicates;
+
+	/*
+	 * Constructors
+	 */
+	ConjunctiveFilter(Iterable<E> iterable, Predicate... predicates) {
+		this.iterable = iterable;
+		this.predicates = predicates;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<E> iterator() {
+		return new ConjunctiveFilterIterator();
+	}
+
+	/**
+	 * A new filter, on the same iterable, with one more predicate.
+	 *
+	 * @param predicate
+	 * @return
+	 */
+	ConjunctiveFilter<E> and(Predicate predicate) {
+		Predicate[] more = new Predicate[predicates.length + 1];
+		System.arraycopy(predicates, 0, more, 0, predicates.length);
+		more[predicates.length] = predicate;
+		return new ConjunctiveFilter<E>(iterable, more);
+	}
+
+	Iterable<E> source() {
+		return iterable;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class ConjunctiveFilterIterator extends AbstractLookAheadIterator<E> {
+		private final Iterator<E> it = iterable.iterator();
+		private final int[] order = new int[predicates.length];
+		private final int[] position = new int[predicates.length];
+		private final long[] evaluations = new long[predicates.length];
+		private final long[] rejections = new long[predicates.length];
+		private final long[] timed = new long[predicates.length];
+		private final long[] nanos = new long[predicates.length];
+		private long seen;
+
+		ConjunctiveFilterIterator() {
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+				position[i] = i;
+			}
+		}
+
+		@Override
+		protected E computeNext() {
+			while (it.hasNext()) {
+				E e = it.next();
+				if (accepts(e)) {
+					return e;
+				}
+			}
+			return endOfData();
+		}
+
+		private boolean accepts(E e) {
+			seen++;
+			if (predicates.length > 1 && seen % REORDER_INTERVAL == 0) {
+				reorder();
+			}
+			boolean timing = predicates.length > 1 && seen % SAMPLE_INTERVAL == 0;
+			for (int k = 0; k < order.length; k++) {
+				int i = order[k];
+				boolean accepted;
+				try {
+					accepted = eval(i, e, timing);
+				} catch (Exception ex) {
+					return acceptsInOriginalOrder(e, k, ex);
+				}
+				if (!accepted) {
+					rejections[i]++;
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean eval(int i, E e, boolean timing) throws Exception {
+			evaluations[i]++;
+			if (!timing) {
+				return predicates[i].eval(e);
+			}
+			long start = System.nanoTime();
+			try {
+				return predicates[i].eval(e);
+			} finally {
+				nanos[i] += System.nanoTime() - start;
+				timed[i]++;
+			}
+		}
+
+		/**
+		 * Called when the k-th predicate in the current order threw. The ones before it
+		 * accepted the element.
+		 */
+		private boolean acceptsInOriginalOrder(E e, int k, Exception failure) {
+			try {
+				for (int i = 0; i < predicates.length; i++) {
+					if (i == order[k]) {
+						throw failure;
+					}
+					if (position[i] > k && !predicates[i].eval(e)) {
+						return false;
+					}
+				}
+				return true;
+			} catch (Exception ex) {
+				throw new EnumeratingException(ex);
+			}
+		}
+
+		/**
+		 * Sorts the predicates by expected nanoseconds per rejected element. The sort is
+		 * stable, so predicates without measures keep their relative order.
+		 */
+		private void reorder() {
+			double[] ranks = new double[order.length];
+			for (int i = 0; i < ranks.length; i++) {
+				ranks[i] = rank(i);
+			}
+			for (int k = 1; k < order.length; k++) {
+				int i = order[k];
+				int j = k - 1;
+				while (j >= 0 && ranks[order[j]] > ranks[i]) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = i;
+			}
+			for (int k = 0; k < order.length; k++) {
+				position[order[k]] = k;
+			}
+		}
+
+		private double rank(int i) {
+			if (rejections[i] == 0) {
+				return Double.POSITIVE_INFINITY;
+			}
+			double cost = 1;
+			if (timed[i] > 0) {
+				cost = Math.max(1, (double) nanos[i] / timed[i]);
+			}
+			return cost * evaluations[i] / rejections[i];
+		}
+	}
+}
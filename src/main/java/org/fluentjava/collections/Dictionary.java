@@ -4,25 +4,75 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Standard Implementation of {@link FluentMap}.
+ * Standard Implementation of {@link FluentMap}. Backed by a {@link HashMap} that counts
+ * the modifications made through the map itself. Removals through its key, value and
+ * entry views are noticed because they change the size; replacing values through
+ * {@link java.util.Map.Entry#setValue(Object)} is not tracked.
  * 
  * @param <K>
  * Type of keys.
  * @param <V>
  * Type of Values
  */
-public class Dictionary<K, V> extends ForwardingFluentMap<K, V> {
+public class Dictionary<K, V> extends ForwardingFluentMap<K, V>
+		implements
+			TracksModifications {
 
-	private static final long serialVersionUID = 2L;
+	private static final long serialVersionUID = 3L;
 
 	/*
 	 * Constructors
 	 */
 	public Dictionary() {
-		super(new HashMap<K, V>());
+		super(new TrackedMap<K, V>());
 	}
 
 	public Dictionary(Map<? extends K, ? extends V> map) {
-		super(new HashMap<K, V>(map));
+		super(new TrackedMap<K, V>());
+		putAll(map);
+	}
+
+	/*
+	 * Public Methods
+	 */
+	@Override
+	public long modificationStamp() {
+		long modifications = ((TrackedMap<K, V>) delegateMap).modifications;
+		return modifications << 32 ^ size();
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * HashMap that counts calls to its modifying methods.
+	 */
+	private static final class TrackedMap<K, V> extends HashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+		private long modifications;
+
+		@Override
+		public V put(K key, V value) {
+			modifications++;
+			return super.put(key, value);
+		}
+
+		@Override
+		public void putAll(Map<? extends K, ? extends V> m) {
+			modifications++;
+			super.putAll(m);
+		}
+
+		@Override
+		public V remove(Object key) {
+			modifications++;
+			return super.remove(key);
+		}
+
+		@Override
+		public void clear() {
+			modifications++;
+			super.clear();
+		}
 	}
 }
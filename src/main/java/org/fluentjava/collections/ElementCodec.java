@@ -0,0 +1,39 @@
+package org.fluentjava.collections;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.fluentjava.ElementCodecs;
+
+/**
+ * Writes elements to, and reads them back from, a binary stream, so that they can be
+ * kept out of the heap. Used by
+ * {@link Enumerable#externalSort(ElementCodec, int)} to spill sorted runs to temporary
+ * files. Reading must return the elements in the same order they were written.
+ * 
+ * Instead of implementing this interface, try using {@link ElementCodecs} static methods.
+ * 
+ * @param <E>
+ * Type of the elements.
+ */
+public interface ElementCodec<E> {
+
+	/**
+	 * Writes one element.
+	 * 
+	 * @param element
+	 * @param output
+	 * @throws IOException
+	 */
+	void write(E element, DataOutput output) throws IOException;
+
+	/**
+	 * Reads the next element.
+	 * 
+	 * @param input
+	 * @return
+	 * @throws IOException
+	 */
+	E read(DataInput input) throws IOException;
+}
@@ -7,6 +7,7 @@ import org.fluentjava.closures.Closure;
 import org.fluentjava.closures.ClosureCoercion;
 import org.fluentjava.closures.ClosureCoercionException;
 import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ZipCursor;
 
 /**
  * Implements an enumeration protocol. A class that implement this interface allow its
@@ -20,7 +21,9 @@ import org.fluentjava.iterators.ExtendedIterable;
  * @param <E>
  * Type of Elements.
  */
-public interface Enumerable<E> extends ExtendedIterable<E> {
+public interface Enumerable<E>
+		extends
+			ExtendedIterable<E>, OrderStatistics<E>, Windowing<E>, Pipelining<E> {
 	/**
 	 * Checks if there exists an object such that the closure returns true. The closure
 	 * must only return boolean values.
@@ -96,6 +99,11 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	 * requested, beware of non immutable data, even more when it is shared by multiple
 	 * threads.
 	 * 
+	 * Consecutive iselect and ireject calls are merged into a single filter, which
+	 * measures its predicates while iterating and evaluates the cheapest and most
+	 * selective first. The elements returned are the same, but predicates of such chains
+	 * should not have side effects, as they may be called in any order.
+	 * 
 	 * @param closure
 	 * @return
 	 * @throws EnumeratingException
@@ -170,7 +178,9 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	void foreach(Object closure) throws EnumeratingException;
 
 	/**
-	 * Applies the closure to each object and returns a list of the result.
+	 * Applies the closure to each object and returns a list of the result. If the closure
+	 * is a {@link org.fluentjava.closures.BatchClosure}, it is called once per chunk of
+	 * elements instead.
 	 * 
 	 * @param <T>
 	 * @param closure
@@ -235,6 +245,130 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	 */
 	<V> Enumerable<Entry<E, V>> imapWithKeys(Object closure);
 
+	/**
+	 * Lazy inner hash join. Pairs each element l of this enumerable with every element r of
+	 * right such that leftKey.call(l) equals rightKey.call(r). Right is loaded into a hash
+	 * table when iteration starts, and this enumerable is streamed, so the cost is linear
+	 * on both sizes and pairs follow the order of this enumerable. When right may be much
+	 * larger, see {@link JoinSide#SMALLER}.
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * Closure that gives the keys of this enumerable's elements.
+	 * @param rightKey
+	 * Closure that gives the keys of right's elements.
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<Pair<E, R>> join(Iterable<R> right, Object leftKey, Object rightKey)
+			throws EnumeratingException;
+
+	/**
+	 * Like {@link #join(Iterable, Object, Object)}, choosing the side loaded into the hash
+	 * table. Pairs follow the order of the streamed side.
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * @param rightKey
+	 * @param buildSide
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<Pair<E, R>> join(Iterable<R> right, Object leftKey, Object rightKey,
+			JoinSide buildSide) throws EnumeratingException;
+
+	/**
+	 * Lazy left outer hash join. Like {@link #join(Iterable, Object, Object)}, but elements
+	 * of this enumerable without any match are paired with null, in their place.
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * @param rightKey
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<Pair<E, R>> leftJoin(Iterable<R> right, Object leftKey, Object rightKey)
+			throws EnumeratingException;
+
+	/**
+	 * Like {@link #leftJoin(Iterable, Object, Object)}, choosing the side loaded into the
+	 * hash table. When this enumerable is loaded, the elements without matches come after
+	 * all the matches.
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * @param rightKey
+	 * @param buildSide
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<Pair<E, R>> leftJoin(Iterable<R> right, Object leftKey,
+			Object rightKey, JoinSide buildSide) throws EnumeratingException;
+
+	/**
+	 * Lazy hash semi join: the elements of this enumerable that have at least one match
+	 * on right, in their order, each one once. The smaller side is loaded into the hash
+	 * table (see {@link JoinSide#SMALLER}), which does not change the order.
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * @param rightKey
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<E> semiJoin(Iterable<R> right, Object leftKey, Object rightKey)
+			throws EnumeratingException;
+
+	/**
+	 * Like {@link #semiJoin(Iterable, Object, Object)}, choosing the side loaded into the
+	 * hash table (only the keys, when it is the right side).
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * @param rightKey
+	 * @param buildSide
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<E> semiJoin(Iterable<R> right, Object leftKey, Object rightKey,
+			JoinSide buildSide) throws EnumeratingException;
+
+	/**
+	 * Lazy hash anti join: the elements of this enumerable that have no match on right, in
+	 * their order. The smaller side is loaded into the hash table (see
+	 * {@link JoinSide#SMALLER}), which does not change the order.
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * @param rightKey
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<E> antiJoin(Iterable<R> right, Object leftKey, Object rightKey)
+			throws EnumeratingException;
+
+	/**
+	 * Like {@link #antiJoin(Iterable, Object, Object)}, choosing the side loaded into the
+	 * hash table (only the keys, when it is the right side).
+	 * 
+	 * @param <R>
+	 * @param right
+	 * @param leftKey
+	 * @param rightKey
+	 * @param buildSide
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<E> antiJoin(Iterable<R> right, Object leftKey, Object rightKey,
+			JoinSide buildSide) throws EnumeratingException;
+
 	/**
 	 * Returns a list containing the sorted elements of the Enumerator, according to its
 	 * natural order.
@@ -262,6 +396,84 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	 */
 	FluentList<E> sortBy(Object closure) throws EnumeratingException;
 
+	/**
+	 * Same as {@link #sort()}, sorting on several threads: the elements are split in one
+	 * run per thread, runs are sorted concurrently and then merged. Stable, like
+	 * {@link #sort()}. Small enumerables are sorted on the calling thread.
+	 * 
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> parallelSort() throws EnumeratingException;
+
+	/**
+	 * Same as {@link #sort(Object)}, sorting on several threads. See
+	 * {@link #parallelSort()}. The comparator may be called from several threads at once.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> parallelSort(Object closure) throws EnumeratingException;
+
+	/**
+	 * Same as {@link #sortBy(Object)}, sorting on several threads. See
+	 * {@link #parallelSort()}. Keys are computed on the calling thread.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> parallelSortBy(Object closure) throws EnumeratingException;
+
+	/**
+	 * Same as {@link #sort()}, for more elements than fit in memory. Lazy: when iteration
+	 * starts, the elements are read in chunks of at most maxElementsInMemory, and each
+	 * chunk is sorted and written by the codec to a temporary file. The files are then
+	 * merged while iterating. If every element fits in one chunk, no file is written.
+	 * Stable, like {@link #sort()}.
+	 * 
+	 * The temporary files are deleted when iteration ends or fails, when the iterator is
+	 * closed (it implements {@link java.io.Closeable}), or, if it is abandoned, when it is
+	 * garbage collected. Each iteration sorts again.
+	 * 
+	 * @param codec
+	 * Writes and reads the elements. See {@link org.fluentjava.ElementCodecs}.
+	 * @param maxElementsInMemory
+	 * The memory budget, in elements.
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> externalSort(ElementCodec<E> codec, int maxElementsInMemory)
+			throws EnumeratingException;
+
+	/**
+	 * Same as {@link #sort(Object)}, for more elements than fit in memory. See
+	 * {@link #externalSort(ElementCodec, int)}.
+	 * 
+	 * @param closure
+	 * @param codec
+	 * @param maxElementsInMemory
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> externalSort(Object closure, ElementCodec<E> codec, int maxElementsInMemory)
+			throws EnumeratingException;
+
+	/**
+	 * Same as {@link #sortBy(Object)}, for more elements than fit in memory. See
+	 * {@link #externalSort(ElementCodec, int)}. Keys are not written, but computed again as
+	 * elements are read back.
+	 * 
+	 * @param closure
+	 * @param codec
+	 * @param maxElementsInMemory
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> externalSortBy(Object closure, ElementCodec<E> codec,
+			int maxElementsInMemory) throws EnumeratingException;
+
 	/**
 	 * Returns a list containing the elements of the Enumerator.
 	 * 
@@ -297,6 +509,57 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	 */
 	<V> FluentMap<E, V> toMapBy(Object closure) throws EnumeratingException;
 
+	/**
+	 * Groups the elements by the result of the closure, in a single traversal. Each key
+	 * maps to the list of elements e such that closure.call(e) equals the key, in the
+	 * order they were iterated.
+	 * 
+	 * @param <K>
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<K> FluentMap<K, FluentList<E>> groupBy(Object closure) throws EnumeratingException;
+
+	/**
+	 * Like {@link #groupBy(Object)}, but instead of collecting the elements of each group,
+	 * feeds them to an {@link Aggregator#emptyCopy()} of the aggregator, and maps each key
+	 * to the aggregator result.
+	 * 
+	 * @param <K>
+	 * @param <R>
+	 * @param closure
+	 * @param aggregator
+	 * @return
+	 * @throws EnumeratingException
+	 * 
+	 * @see org.fluentjava.Aggregators
+	 */
+	<K, R> FluentMap<K, R> groupBy(Object closure, Aggregator<R> aggregator)
+			throws EnumeratingException;
+
+	/**
+	 * Counts how many elements give each result of the closure, in a single traversal.
+	 * 
+	 * @param <K>
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<K> FluentMap<K, Integer> countBy(Object closure) throws EnumeratingException;
+
+	/**
+	 * Splits the elements in a single traversal: the first list has the elements such that
+	 * the closure returns true, and the second one has the rest. The closure must only
+	 * return boolean values.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Pair<FluentList<E>, FluentList<E>> partition(Object closure)
+			throws EnumeratingException;
+
 	/**
 	 * As reduce(E initial, Object closure), but uses the first element of the collection
 	 * as a the initial value (and skips that element while iterating).
@@ -337,6 +600,54 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	 */
 	E inject(E initial, Object closure) throws EnumeratingException;
 
+	/**
+	 * Parallel version of {@link #reduce(Object, Object)}. The elements are split in
+	 * chunks that are folded concurrently by the accumulator, each one starting from
+	 * identity, and the partial results are then combined in a tree by the combiner. The
+	 * split depends only on the number of elements, so the result is deterministic as long
+	 * as both closures are associative and identity is neutral for them. Both closures
+	 * may be called from several threads at once.
+	 * 
+	 * @param <T>
+	 * @param identity
+	 * @param accumulator
+	 * Receives the partial result and an element.
+	 * @param combiner
+	 * Receives two partial results.
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> T parallelReduce(T identity, Object accumulator, Object combiner)
+			throws EnumeratingException;
+
+	/**
+	 * Alias to {@link #parallelReduce(Object, Object, Object)}.
+	 * 
+	 * @param <T>
+	 * @param identity
+	 * @param accumulator
+	 * @param combiner
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> T parallelInject(T identity, Object accumulator, Object combiner)
+			throws EnumeratingException;
+
+	/**
+	 * Feeds every aggregator (actually, an {@link Aggregator#emptyCopy()} of each one)
+	 * with all elements, in a single traversal, and returns their results in the same
+	 * order of the aggregators. Useful to compute several values, such as count, min, max
+	 * and sum, without iterating several times (and, on lazy enumerables, without calling
+	 * their closures several times).
+	 * 
+	 * @param aggregators
+	 * @return
+	 * @throws EnumeratingException
+	 * 
+	 * @see org.fluentjava.Aggregators
+	 */
+	FluentList<Object> aggregate(Aggregator<?>... aggregators) throws EnumeratingException;
+
 	/**
 	 * Takes the first n elements. In case the iterable has less than n elements, returns
 	 * as much as possible.
@@ -357,6 +668,66 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	 */
 	Enumerable<E> itake(int n) throws EnumeratingException;
 
+	/**
+	 * Returns all elements but the first n. In case the iterable has less than n elements,
+	 * returns an empty list.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> skip(int n) throws EnumeratingException;
+
+	/**
+	 * Lazy version of {@link #skip(int)}. Random access lists (such as {@link Sequence})
+	 * and {@link org.fluentjava.FluentUtils#irange(int, int)} jump straight to the n-th
+	 * element, so paging costs the size of the page and not its offset.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> iskip(int n) throws EnumeratingException;
+
+	/**
+	 * Returns the leading elements for which the closure evaluates true, stopping at the
+	 * first one that evaluates false.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> takeWhile(Object closure) throws EnumeratingException;
+
+	/**
+	 * Lazy version of {@link #takeWhile(Object)}. Elements after the first that evaluates
+	 * false are never read.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> itakeWhile(Object closure) throws EnumeratingException;
+
+	/**
+	 * Returns the elements from the first one for which the closure evaluates false on,
+	 * without evaluating the closure again.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> dropWhile(Object closure) throws EnumeratingException;
+
+	/**
+	 * Lazy version of {@link #dropWhile(Object)}.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> idropWhile(Object closure) throws EnumeratingException;
+
 	/**
 	 * Return any element of the iterable. If there are no elements, return null.
 	 * 
@@ -423,4 +794,130 @@ public interface Enumerable<E> extends ExtendedIterable<E> {
 	 */
 	E minBy(Object closure) throws EnumeratingException;
 
+	/**
+	 * Lazy version of removing duplicates: returns the first occurrence of each element,
+	 * in iteration order. Elements already seen are remembered in a compact open
+	 * addressing table, which allocates nothing per element.
+	 * 
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> idistinct() throws EnumeratingException;
+
+	/**
+	 * Same as {@link #idistinct()}. If sortedInput is true, equal elements are assumed to
+	 * be adjacent, so only the last one is remembered and memory stays constant.
+	 * 
+	 * @param sortedInput
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> idistinct(boolean sortedInput) throws EnumeratingException;
+
+	/**
+	 * Lazily returns the first element e of each distinct closure.call(e), in iteration
+	 * order. See {@link #idistinct()}.
+	 * 
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> iuniqBy(Object closure) throws EnumeratingException;
+
+	/**
+	 * Same as {@link #iuniqBy(Object)}. If sortedInput is true, elements with equal keys
+	 * are assumed to be adjacent, as after {@link #sortBy(Object)}, so only the last key is
+	 * remembered.
+	 * 
+	 * @param closure
+	 * @param sortedInput
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> iuniqBy(Object closure, boolean sortedInput) throws EnumeratingException;
+
+	/**
+	 * Applies the closure to each element, and returns the elements of every result
+	 * (when it is an {@link Iterable}) or the result itself (otherwise), in order.
+	 * 
+	 * @param <T>
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> FluentList<T> flatMap(Object closure) throws EnumeratingException;
+
+	/**
+	 * Lazy version of {@link #flatMap(Object)}. Results are iterated as requested, and
+	 * never copied.
+	 * 
+	 * @param <T>
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> Enumerable<T> iflatMap(Object closure) throws EnumeratingException;
+
+	/**
+	 * Lazy, recursive flattening: for every element that is an {@link Iterable}, returns
+	 * its elements instead, walking them with an explicit stack and without copying
+	 * them. Iterating over an iterable that contains itself throws an
+	 * IllegalArgumentException.
+	 * 
+	 * @param <T>
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> Enumerable<T> iflatten() throws EnumeratingException;
+
+	/**
+	 * Same as {@link #iflatten()}, but only flattens depth levels of nesting; deeper
+	 * iterables are returned as they are. Iterables that contain themselves are allowed
+	 * here, since the depth bounds the output.
+	 * 
+	 * @param <T>
+	 * @param depth
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> Enumerable<T> iflatten(int depth) throws EnumeratingException;
+
+	/**
+	 * Returns a cursor that walks this enumerable (source 0) and the others (sources 1 to
+	 * n) in lockstep, until any of them runs out of elements. Stepping allocates nothing;
+	 * see {@link ZipCursor}.
+	 * 
+	 * @param others
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	ZipCursor zipCursor(Iterable<?>... others) throws EnumeratingException;
+
+	/**
+	 * Calls the closure with the elements at the same position of this enumerable and of
+	 * each of the others, as many arguments, and returns the list of results. Stops when
+	 * any of them runs out of elements. The arguments array is reused between calls, so
+	 * the closure must not keep it.
+	 * 
+	 * @param <T>
+	 * @param closure
+	 * @param others
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> FluentList<T> zipWith(Object closure, Iterable<?>... others)
+			throws EnumeratingException;
+
+	/**
+	 * Lazy version of {@link #zipWith(Object, Iterable...)}.
+	 * 
+	 * @param <T>
+	 * @param closure
+	 * @param others
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<T> Enumerable<T> izipWith(Object closure, Iterable<?>... others)
+			throws EnumeratingException;
+
 }
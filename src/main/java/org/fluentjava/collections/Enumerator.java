@@ -2,6 +2,9 @@ package org.fluentjava.collections;
 
 import static org.fluentjava.FluentUtils.as;
 
+import java.util.List;
+import java.util.RandomAccess;
+
 import org.fluentjava.iterators.ExtendedIterable;
 import org.fluentjava.iterators.ExtendedIterableAdapter;
 import org.fluentjava.iterators.ExtendedIterator;
@@ -18,11 +21,13 @@ public class Enumerator<E> extends AbstractEnumerable<E> implements Enumerable<E
 	 * Variables
 	 */
 	protected final ExtendedIterable<E> iterable;
+	private final Iterable<? extends E> source;
 
 	/*
 	 * Constructors
 	 */
 	public Enumerator(Iterable<? extends E> iterable) {
+		this.source = iterable;
 		if (iterable instanceof ExtendedIterable) {
 			this.iterable = as(iterable);
 		}
@@ -39,4 +44,20 @@ public class Enumerator<E> extends AbstractEnumerable<E> implements Enumerable<E
 	public ExtendedIterator<E> iterator() {
 		return iterable.iterator();
 	}
+
+	/*
+	 * Other Methods
+	 */
+	@Override
+	protected List<E> asRandomAccessList() {
+		if (source instanceof List && source instanceof RandomAccess) {
+			return as(source);
+		}
+		return null;
+	}
+
+	@Override
+	Iterable<?>[] upstream() {
+		return new Iterable<?>[] {source};
+	}
 }
@@ -1,15 +1,19 @@
 package org.fluentjava.collections;
 
 import java.util.HashSet;
+import java.util.Iterator;
 
 /**
- * Standard implementation of FluentSet.
+ * Standard implementation of FluentSet. Backed by a {@link HashSet} that counts
+ * modifications, including removals through its iterators.
  * 
  * @param <E>
  * Type of elements
  */
-public class ExtendedSet<E> extends ForwardingFluentSet<E> {
-	private static final long serialVersionUID = 2L;
+public class ExtendedSet<E> extends ForwardingFluentSet<E>
+		implements
+			TracksModifications {
+	private static final long serialVersionUID = 3L;
 
 	/*
 	 * Constructors
@@ -18,7 +22,7 @@ public class ExtendedSet<E> extends ForwardingFluentSet<E> {
 	 * Creates an empty ExtendedSet.
 	 */
 	public ExtendedSet() {
-		super(new HashSet<E>());
+		super(new TrackedSet<E>());
 	}
 
 	/**
@@ -40,4 +44,66 @@ public class ExtendedSet<E> extends ForwardingFluentSet<E> {
 		this();
 		insert(iterable);
 	}
+
+	/*
+	 * Public Methods
+	 */
+	@Override
+	public long modificationStamp() {
+		return ((TrackedSet<E>) delegateSet).modifications;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * HashSet that counts the additions and removals that change it. Bulk operations are
+	 * implemented on top of these, by {@link java.util.AbstractCollection}.
+	 */
+	private static final class TrackedSet<E> extends HashSet<E> {
+		private static final long serialVersionUID = 1L;
+		private long modifications;
+
+		@Override
+		public boolean add(E e) {
+			return changed(super.add(e));
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return changed(super.remove(o));
+		}
+
+		@Override
+		public void clear() {
+			changed(!isEmpty());
+			super.clear();
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			final Iterator<E> it = super.iterator();
+			return new Iterator<E>() {
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				public E next() {
+					return it.next();
+				}
+
+				public void remove() {
+					it.remove();
+					modifications++;
+				}
+			};
+		}
+
+		private boolean changed(boolean changed) {
+			if (changed) {
+				modifications++;
+			}
+			return changed;
+		}
+	}
 }
@@ -0,0 +1,410 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Implements {@link Enumerable#externalSort(ElementCodec, int)} and its variants: a stable
+ * sort of more elements than fit in memory. When iteration starts, the elements are read
+ * in chunks of at most maxElementsInMemory, each chunk is sorted in memory and written to
+ * a temporary file, through the codec, as a sorted run. The runs are then merged, at most
+ * {@link #MAX_FAN_IN} at a time, by a priority queue holding the next element of each
+ * run, and the result is returned as it is merged. If all the elements fit in one chunk,
+ * nothing is written.
+ *
+ * Temporary files are deleted when iteration ends, fails, or the iterator is closed (it
+ * implements {@link Closeable}). An abandoned iterator deletes them when it is garbage
+ * collected.
+ *
+ * @param <E>
+ */
+class ExternalSort<E> implements ExtendedIterable<E> {
+	/*
+	 * Constants
+	 */
+	static final int MAX_FAN_IN = 64;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final Closure keyGenerator;
+	private final Comparator<Object> comparator;
+	private final boolean naturalOrder;
+	private final ElementCodec<E> codec;
+	private final int maxElementsInMemory;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param iterable
+	 * @param keyGenerator
+	 * If null, elements are their own keys.
+	 * @param comparator
+	 * Of the keys. If null, their natural order.
+	 * @param codec
+	 * @param maxElementsInMemory
+	 */
+	ExternalSort(Iterable<E> iterable, Closure keyGenerator, Comparator<?> comparator,
+			ElementCodec<E> codec, int maxElementsInMemory) {
+		if (maxElementsInMemory <= 1) {
+			throw new IllegalArgumentException("At least 2 elements must fit in memory:"
+					+ maxElementsInMemory);
+		}
+		this.iterable = iterable;
+		this.keyGenerator = keyGenerator;
+		if (comparator == null) {
+			this.comparator = new ComparableComparator<Object>();
+		}
+		else {
+			this.comparator = as(comparator);
+		}
+		this.naturalOrder = comparator == null;
+		this.codec = codec;
+		this.maxElementsInMemory = maxElementsInMemory;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<E> iterator() {
+		return new ExternalSortIterator();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private Object keyOf(E element) throws Exception {
+		if (keyGenerator == null) {
+			return element;
+		}
+		return keyGenerator.call(element);
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Sorts on the first call to hasNext or next. Holds every temporary file not deleted
+	 * yet.
+	 */
+	private class ExternalSortIterator extends AbstractLookAheadIterator<E> implements
+			Closeable {
+		private final List<Run> runs = new ArrayList<Run>();
+		private Object[] sorted;
+		private int position;
+		private Merge merge;
+		private boolean started;
+		private boolean closed;
+
+		@Override
+		protected E computeNext() {
+			if (closed) {
+				return endOfData();
+			}
+			try {
+				if (!started) {
+					started = true;
+					start();
+				}
+				if (sorted != null) {
+					if (position < sorted.length) {
+						E ret = as(sorted[position]);
+						sorted[position++] = null;
+						return ret;
+					}
+				}
+				else if (merge != null && merge.hasNext()) {
+					return merge.next();
+				}
+				close();
+				return endOfData();
+			} catch (EnumeratingException e) {
+				close();
+				throw e;
+			} catch (Exception e) {
+				close();
+				throw new EnumeratingException(e);
+			}
+		}
+
+		/**
+		 * Deletes the temporary files. Iteration ends, even if it has not started yet, so
+		 * no file is written afterwards.
+		 */
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			sorted = null;
+			if (merge != null) {
+				merge.close();
+			}
+			for (Run run : runs) {
+				run.delete();
+			}
+			runs.clear();
+		}
+
+		/**
+		 * Deletes the temporary files of an abandoned iteration.
+		 */
+		@Override
+		protected void finalize() throws Throwable {
+			try {
+				close();
+			} finally {
+				super.finalize();
+			}
+		}
+
+		/**
+		 * Writes the sorted runs and merges them until they can be merged at once, unless
+		 * every element fits in memory.
+		 */
+		private void start() throws Exception {
+			Iterator<E> it = iterable.iterator();
+			Object[] chunk = sortedChunk(it);
+			if (!it.hasNext()) {
+				sorted = chunk;
+				return;
+			}
+			write(chunk);
+			while (it.hasNext()) {
+				write(sortedChunk(it));
+			}
+			while (runs.size() > MAX_FAN_IN) {
+				mergePass();
+			}
+			merge = new Merge(runs);
+		}
+
+		/**
+		 * Merges every MAX_FAN_IN consecutive runs into one, so merges stay stable.
+		 */
+		private void mergePass() throws Exception {
+			int count = runs.size();
+			for (int from = 0; from < count; from += MAX_FAN_IN) {
+				int to = Math.min(from + MAX_FAN_IN, count);
+				Merge groupMerge = new Merge(new ArrayList<Run>(runs.subList(from, to)));
+				Run run = newRun();
+				try {
+					while (groupMerge.hasNext()) {
+						run.write(groupMerge.next());
+					}
+				} finally {
+					groupMerge.close();
+					run.closeOutput();
+				}
+			}
+			List<Run> merged = runs.subList(0, count);
+			for (Run run : merged) {
+				run.delete();
+			}
+			merged.clear();
+		}
+
+		private Object[] sortedChunk(Iterator<E> it) throws Exception {
+			List<E> chunk = new ArrayList<E>();
+			while (chunk.size() < maxElementsInMemory && it.hasNext()) {
+				chunk.add(it.next());
+			}
+			Object[] elements = chunk.toArray();
+			chunk = null;
+			Object[] keys = new Object[elements.length];
+			for (int i = 0; i < elements.length; i++) {
+				E e = as(elements[i]);
+				keys[i] = keyOf(e);
+			}
+			if (naturalOrder) {
+				KeySort.sort(keys, elements);
+			}
+			else {
+				KeySort.sort(keys, elements, comparator);
+			}
+			return elements;
+		}
+
+		private void write(Object[] elements) throws IOException {
+			Run run = newRun();
+			try {
+				for (Object element : elements) {
+					E e = as(element);
+					run.write(e);
+				}
+			} finally {
+				run.closeOutput();
+			}
+		}
+
+		/**
+		 * A new run, deleted on close.
+		 */
+		private Run newRun() throws IOException {
+			Run run = new Run();
+			runs.add(run);
+			return run;
+		}
+	}
+
+	/**
+	 * A temporary file with sorted elements.
+	 */
+	private class Run {
+		private final File file;
+		private DataOutputStream output;
+		private long size;
+
+		Run() throws IOException {
+			file = File.createTempFile("fluentjava-sort", ".run");
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
+					BUFFER_SIZE));
+		}
+
+		void write(E element) throws IOException {
+			codec.write(element, output);
+			size++;
+		}
+
+		void closeOutput() throws IOException {
+			if (output != null) {
+				output.close();
+				output = null;
+			}
+		}
+
+		RunReader open(int index) throws IOException {
+			return new RunReader(this, index);
+		}
+
+		void delete() {
+			try {
+				closeOutput();
+			} catch (IOException e) {
+				// The file is deleted anyway
+			}
+			file.delete();
+		}
+	}
+
+	/**
+	 * Reads a run, keeping its next element and key.
+	 */
+	private class RunReader {
+		private final DataInputStream input;
+		private final int index;
+		private long remaining;
+		private E element;
+		private Object key;
+
+		RunReader(Run run, int index) throws IOException {
+			this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(
+					run.file), BUFFER_SIZE));
+			this.index = index;
+			this.remaining = run.size;
+		}
+
+		/**
+		 * Reads the next element. Closes the run when there is none.
+		 */
+		boolean advance() throws Exception {
+			if (remaining == 0) {
+				close();
+				return false;
+			}
+			remaining--;
+			element = codec.read(input);
+			key = keyOf(element);
+			return true;
+		}
+
+		void close() {
+			try {
+				input.close();
+			} catch (IOException e) {
+				// Nothing more is read
+			}
+		}
+	}
+
+	/**
+	 * Merges runs. On equal keys, the earliest run goes first.
+	 */
+	private class Merge implements Comparator<RunReader> {
+		private final PriorityQueue<RunReader> queue;
+
+		Merge(List<Run> runs) throws Exception {
+			queue = new PriorityQueue<RunReader>(runs.size(), this);
+			try {
+				for (int i = 0; i < runs.size(); i++) {
+					add(runs.get(i).open(i));
+				}
+			} catch (Exception e) {
+				close();
+				throw e;
+			}
+		}
+
+		public int compare(RunReader o1, RunReader o2) {
+			int ret = comparator.compare(o1.key, o2.key);
+			if (ret == 0) {
+				return o1.index - o2.index;
+			}
+			return ret;
+		}
+
+		boolean hasNext() {
+			return !queue.isEmpty();
+		}
+
+		E next() throws Exception {
+			RunReader reader = queue.poll();
+			E ret = reader.element;
+			add(reader);
+			return ret;
+		}
+
+		/**
+		 * Adds the reader with its next element, if any.
+		 */
+		private void add(RunReader reader) throws Exception {
+			try {
+				if (reader.advance()) {
+					queue.add(reader);
+				}
+			} catch (Exception e) {
+				reader.close();
+				throw e;
+			}
+		}
+
+		void close() {
+			for (RunReader reader : queue) {
+				reader.close();
+			}
+			queue.clear();
+		}
+	}
+}
@@ -85,4 +85,25 @@ public interface FluentList<E> extends List<E>, Enumerable<E>, ExtendedCollectio
 	 * @return
 	 */
 	FluentList<E> subList(int fromIndex);
+
+	/**
+	 * Same as {@link #nth(int)}, without copying the elements: this list is reordered
+	 * instead. Afterwards, the returned element is at position k, no element before it is
+	 * greater and no element after it is smaller.
+	 * 
+	 * @param k
+	 * @return
+	 * @throws IndexOutOfBoundsException
+	 * If there are not more than k elements.
+	 */
+	E nthInPlace(int k);
+
+	/**
+	 * Same as {@link #percentiles(double...)}, without copying the elements: this list is
+	 * reordered instead, as by {@link #nthInPlace(int)} for each percentile.
+	 * 
+	 * @param percentiles
+	 * @return
+	 */
+	FluentList<E> percentilesInPlace(double... percentiles);
 }
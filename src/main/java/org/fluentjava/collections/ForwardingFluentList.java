@@ -10,6 +10,7 @@ import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.RandomAccess;
 
 import org.fluentjava.iterators.ExtendedIterator;
 import org.fluentjava.iterators.ExtendedIteratorAdapter;
@@ -122,9 +123,59 @@ public class ForwardingFluentList<E> extends AbstractEnumerable<E>
 		return toList();
 	}
 
+	public E nthInPlace(int k) {
+		List<Object> list = inPlace();
+		FluentList<E> ret = Selection.select(list, list, new ComparableComparator<Object>(), k);
+		writeBack(list);
+		return ret.get(0);
+	}
+
+	public FluentList<E> percentilesInPlace(double... percentiles) {
+		List<Object> list = inPlace();
+		FluentList<E> ret = selectPercentiles(list, percentiles);
+		writeBack(list);
+		return ret;
+	}
+
 	/*
 	 * Other Methods
 	 */
+	@Override
+	protected List<E> asRandomAccessList() {
+		if (delegateList instanceof RandomAccess) {
+			return delegateList;
+		}
+		return null;
+	}
+
+	@Override
+	Iterable<?>[] upstream() {
+		return new Iterable<?>[] {delegateList};
+	}
+
+	/**
+	 * The list to reorder in place: the delegate list, unless it has slow random access,
+	 * in which case a copy that is written back afterwards.
+	 */
+	private List<Object> inPlace() {
+		if (delegateList instanceof RandomAccess) {
+			return as(delegateList);
+		}
+		return asList(toArray());
+	}
+
+	private void writeBack(List<Object> list) {
+		if (list == delegateList) {
+			return;
+		}
+		ListIterator<E> it = delegateList.listIterator();
+		for (Object e : list) {
+			it.next();
+			E element = as(e);
+			it.set(element);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T> void recFlatten(FluentList<T> ret,
 			IdentityHashMap<Object, Boolean> visitedLists,
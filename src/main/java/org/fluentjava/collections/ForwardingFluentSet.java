@@ -231,6 +231,11 @@ public class ForwardingFluentSet<E> extends AbstractEnumerable<E>
 	/*
 	 * Other Methods
 	 */
+	@Override
+	Iterable<?>[] upstream() {
+		return new Iterable<?>[] {delegateSet};
+	}
+
 	private Collection<? extends E> iterableToCollection(Iterable<? extends E> iterable) {
 		if (iterable instanceof Collection) {
 			return as(iterable);
@@ -0,0 +1,111 @@
+package org.fluentjava.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.closures.Predicate;
+
+/**
+ * Single pass grouping operations of {@link Enumerable}: groupBy, countBy and partition.
+ * 
+ * @param <E>
+ * Type of elements.
+ */
+class Grouping<E> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+
+	/*
+	 * Constructors
+	 */
+	Grouping(Iterable<E> iterable) {
+		this.iterable = iterable;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	<K> FluentMap<K, FluentList<E>> groupBy(Closure keyGenerator) {
+		FluentMap<K, FluentList<E>> ret = new Dictionary<K, FluentList<E>>();
+		try {
+			for (E e : iterable) {
+				K key = keyGenerator.<K>invoke(e);
+				FluentList<E> group = ret.get(key);
+				if (group == null) {
+					group = new Sequence<E>();
+					ret.put(key, group);
+				}
+				group.add(e);
+			}
+			return ret;
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	<K> FluentMap<K, Integer> countBy(Closure keyGenerator) {
+		Map<K, int[]> counters = new HashMap<K, int[]>();
+		try {
+			for (E e : iterable) {
+				K key = keyGenerator.<K>invoke(e);
+				int[] counter = counters.get(key);
+				if (counter == null) {
+					counter = new int[1];
+					counters.put(key, counter);
+				}
+				counter[0]++;
+			}
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		FluentMap<K, Integer> ret = new Dictionary<K, Integer>();
+		for (Entry<K, int[]> entry : counters.entrySet()) {
+			ret.put(entry.getKey(), entry.getValue()[0]);
+		}
+		return ret;
+	}
+
+	<K, R> FluentMap<K, R> groupBy(Closure keyGenerator, Aggregator<R> aggregator) {
+		Map<K, Aggregator<R>> groups = new HashMap<K, Aggregator<R>>();
+		try {
+			for (E e : iterable) {
+				K key = keyGenerator.<K>invoke(e);
+				Aggregator<R> group = groups.get(key);
+				if (group == null) {
+					group = aggregator.emptyCopy();
+					groups.put(key, group);
+				}
+				group.add(e);
+			}
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		FluentMap<K, R> ret = new Dictionary<K, R>();
+		for (Entry<K, Aggregator<R>> entry : groups.entrySet()) {
+			ret.put(entry.getKey(), entry.getValue().result());
+		}
+		return ret;
+	}
+
+	Pair<FluentList<E>, FluentList<E>> partition(Predicate predicate) {
+		FluentList<E> accepted = new Sequence<E>();
+		FluentList<E> rejected = new Sequence<E>();
+		try {
+			for (E e : iterable) {
+				if (predicate.eval(e)) {
+					accepted.add(e);
+				}
+				else {
+					rejected.add(e);
+				}
+			}
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		return new Pair<FluentList<E>, FluentList<E>>(accepted, rejected);
+	}
+}
@@ -0,0 +1,302 @@
+package org.fluentjava.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Implements the hash joins of {@link Enumerable}. One side is loaded into a hash table by
+ * its keys, and the other one is streamed and probed against the table. Nothing is done
+ * until an iterator is requested, and every iterator builds its own table, so the join
+ * reflects the current contents of both sides.
+ * 
+ * Keys are compared with equals and hashCode, as in {@link HashMap} (so null keys match
+ * each other).
+ * 
+ * @param <L>
+ * Type of the left side elements.
+ * @param <R>
+ * Type of the right side elements.
+ */
+class HashJoin<L, R> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<L> left;
+	private final Iterable<R> right;
+	private final Closure leftKey;
+	private final Closure rightKey;
+	private final boolean buildOnLeft;
+
+	/*
+	 * Constructors
+	 */
+	HashJoin(Iterable<L> left, Iterable<R> right, Closure leftKey, Closure rightKey,
+			JoinSide side) {
+		this.left = left;
+		this.right = right;
+		this.leftKey = leftKey;
+		this.rightKey = rightKey;
+		this.buildOnLeft = isLeftTheBuildSide(side);
+	}
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Pairs of matching elements. If outer, left elements without any match are paired
+	 * with null.
+	 * 
+	 * @param outer
+	 * @return
+	 */
+	ExtendedIterable<Pair<L, R>> pairs(final boolean outer) {
+		return new ExtendedIterable<Pair<L, R>>() {
+			public ExtendedIterator<Pair<L, R>> iterator() {
+				if (buildOnLeft) {
+					return new ProbeRightIterator(outer);
+				}
+				return new ProbeLeftIterator(outer);
+			}
+		};
+	}
+
+	/**
+	 * Left elements that have (or, if anti, that do not have) a matching right element.
+	 * Left elements keep their order.
+	 * 
+	 * @param anti
+	 * @return
+	 */
+	ExtendedIterable<L> filter(final boolean anti) {
+		return new ExtendedIterable<L>() {
+			public ExtendedIterator<L> iterator() {
+				if (buildOnLeft) {
+					return new MarkedLeftIterator(anti);
+				}
+				return new KeySetIterator(anti);
+			}
+		};
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private boolean isLeftTheBuildSide(JoinSide side) {
+		if (side != JoinSide.SMALLER) {
+			return side == JoinSide.LEFT;
+		}
+		if (left instanceof Collection && right instanceof Collection) {
+			return ((Collection<?>) left).size() < ((Collection<?>) right).size();
+		}
+		return left instanceof Collection;
+	}
+
+	private static Object key(Closure keyGenerator, Object element) {
+		try {
+			return keyGenerator.call(element);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	/**
+	 * Loads one side into a hash table. If the lists are not null, they are filled with
+	 * the elements, in iteration order, and their buckets.
+	 */
+	private <T> Map<Object, Bucket<T>> buildTable(Iterable<T> side, Closure keyGenerator,
+			List<T> elementsInOrder, List<Bucket<T>> bucketOfEachElement) {
+		Map<Object, Bucket<T>> table = new HashMap<Object, Bucket<T>>();
+		for (T element : side) {
+			Object key = key(keyGenerator, element);
+			Bucket<T> bucket = table.get(key);
+			if (bucket == null) {
+				bucket = new Bucket<T>();
+				table.put(key, bucket);
+			}
+			bucket.elements.add(element);
+			if (elementsInOrder != null) {
+				elementsInOrder.add(element);
+				bucketOfEachElement.add(bucket);
+			}
+		}
+		return table;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Elements of the build side sharing the same key.
+	 * 
+	 * @param <T>
+	 */
+	private static class Bucket<T> {
+		private final List<T> elements = new ArrayList<T>(1);
+		private boolean matched;
+	}
+
+	/**
+	 * Right side is loaded; left side is streamed, so pairs follow the left order.
+	 */
+	private class ProbeLeftIterator extends AbstractLookAheadIterator<Pair<L, R>> {
+		private final boolean outer;
+		private final Map<Object, Bucket<R>> table;
+		private final Iterator<L> probe = left.iterator();
+		private L current;
+		private List<R> matches;
+		private int matchIndex;
+
+		public ProbeLeftIterator(boolean outer) {
+			this.outer = outer;
+			this.table = buildTable(right, rightKey, null, null);
+		}
+
+		@Override
+		protected Pair<L, R> computeNext() {
+			while (true) {
+				if (matches != null && matchIndex < matches.size()) {
+					return new Pair<L, R>(current, matches.get(matchIndex++));
+				}
+				if (!probe.hasNext()) {
+					return endOfData();
+				}
+				current = probe.next();
+				Bucket<R> bucket = table.get(key(leftKey, current));
+				matches = null;
+				if (bucket != null) {
+					matches = bucket.elements;
+					matchIndex = 0;
+				}
+				else if (outer) {
+					return new Pair<L, R>(current, null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Left side is loaded; right side is streamed, so pairs follow the right order. Left
+	 * elements without matches (for outer joins) come last, in the left order.
+	 */
+	private class ProbeRightIterator extends AbstractLookAheadIterator<Pair<L, R>> {
+		private final boolean outer;
+		private final List<L> elements = new ArrayList<L>();
+		private final List<Bucket<L>> bucketOfEachElement = new ArrayList<Bucket<L>>();
+		private final Map<Object, Bucket<L>> table;
+		private final Iterator<R> probe = right.iterator();
+		private R current;
+		private List<L> matches;
+		private int matchIndex;
+		private int unmatchedIndex;
+
+		public ProbeRightIterator(boolean outer) {
+			this.outer = outer;
+			this.table = buildTable(left, leftKey, elements, bucketOfEachElement);
+		}
+
+		@Override
+		protected Pair<L, R> computeNext() {
+			while (true) {
+				if (matches != null && matchIndex < matches.size()) {
+					return new Pair<L, R>(matches.get(matchIndex++), current);
+				}
+				if (!probe.hasNext()) {
+					return nextUnmatched();
+				}
+				current = probe.next();
+				Bucket<L> bucket = table.get(key(rightKey, current));
+				matches = null;
+				if (bucket != null) {
+					bucket.matched = true;
+					matches = bucket.elements;
+					matchIndex = 0;
+				}
+			}
+		}
+
+		private Pair<L, R> nextUnmatched() {
+			if (!outer) {
+				return endOfData();
+			}
+			while (unmatchedIndex < elements.size()) {
+				int position = unmatchedIndex++;
+				if (!bucketOfEachElement.get(position).matched) {
+					return new Pair<L, R>(elements.get(position), null);
+				}
+			}
+			return endOfData();
+		}
+	}
+
+	/**
+	 * Left side is loaded and the right side is fully streamed, marking the matched keys;
+	 * then left elements are filtered by the marks.
+	 */
+	private class MarkedLeftIterator extends AbstractLookAheadIterator<L> {
+		private final boolean anti;
+		private final List<L> elements = new ArrayList<L>();
+		private final List<Bucket<L>> bucketOfEachElement = new ArrayList<Bucket<L>>();
+		private int index;
+
+		public MarkedLeftIterator(boolean anti) {
+			this.anti = anti;
+			Map<Object, Bucket<L>> table =
+				buildTable(left, leftKey, elements, bucketOfEachElement);
+			for (R element : right) {
+				Bucket<L> bucket = table.get(key(rightKey, element));
+				if (bucket != null) {
+					bucket.matched = true;
+				}
+			}
+		}
+
+		@Override
+		protected L computeNext() {
+			while (index < elements.size()) {
+				int position = index++;
+				if (bucketOfEachElement.get(position).matched != anti) {
+					return elements.get(position);
+				}
+			}
+			return endOfData();
+		}
+	}
+
+	/**
+	 * Only the keys of the right side are loaded; left side is streamed and filtered.
+	 */
+	private class KeySetIterator extends AbstractLookAheadIterator<L> {
+		private final boolean anti;
+		private final Set<Object> keys = new HashSet<Object>();
+		private final Iterator<L> probe = left.iterator();
+
+		public KeySetIterator(boolean anti) {
+			this.anti = anti;
+			for (R element : right) {
+				keys.add(key(rightKey, element));
+			}
+		}
+
+		@Override
+		protected L computeNext() {
+			while (probe.hasNext()) {
+				L current = probe.next();
+				if (keys.contains(key(leftKey, current)) != anti) {
+					return current;
+				}
+			}
+			return endOfData();
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package org.fluentjava.collections;
+
+/**
+ * Which side of a join is loaded into the hash table; the other side is only streamed.
+ * 
+ * @see Enumerable#join(Iterable, Object, Object, JoinSide)
+ */
+public enum JoinSide {
+	/**
+	 * The enumerable whose join method is called.
+	 */
+	LEFT,
+	/**
+	 * The iterable passed as argument to the join method.
+	 */
+	RIGHT,
+	/**
+	 * The side with less elements. Sizes are only known for {@link java.util.Collection}s:
+	 * if just one side is a collection, it is the one loaded, and if none is, the right
+	 * side is loaded.
+	 */
+	SMALLER
+}
@@ -0,0 +1,229 @@
+package org.fluentjava.collections;
+
+import java.util.Comparator;
+
+/**
+ * Implements {@link Enumerable#sortBy(Object)}: sorts elements by keys already computed,
+ * held in an array parallel to the elements, so no pair is created per element. The keys
+ * are inspected first: when all of them are Integers, Longs or Doubles, they are unboxed
+ * into a long array, mapped so that unsigned order is their natural order, and sorted by
+ * a least significant digit radix sort, which never compares them. Otherwise, both arrays
+ * are sorted together by a merge sort, comparing Strings directly and any other key by
+ * its natural order. Every sort is stable.
+ */
+final class KeySort {
+	/*
+	 * Constants
+	 */
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int DIGIT_MASK = RADIX - 1;
+	private static final int DIGITS = Long.SIZE / RADIX_BITS;
+	private static final int INSERTION_SORT_CUTOFF = 7;
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Sorts the elements, in place, by the natural order of the keys. The keys are left in
+	 * no particular order.
+	 *
+	 * @param keys
+	 * @param elements
+	 */
+	static void sort(Object[] keys, Object[] elements) {
+		if (keys.length < 2) {
+			return;
+		}
+		Class<?> type = commonClass(keys);
+		if (type == Integer.class || type == Long.class || type == Double.class) {
+			radixSort(unboxed(keys, type), elements);
+		}
+		else if (type == String.class) {
+			mergeSort(keys, elements, new StringComparator());
+		}
+		else {
+			mergeSort(keys, elements, new ComparableComparator<Object>());
+		}
+	}
+
+	/**
+	 * Sorts the elements, in place, by the order of the keys given by the comparator. The
+	 * keys are sorted as well.
+	 *
+	 * @param keys
+	 * @param elements
+	 * @param comparator
+	 */
+	static void sort(Object[] keys, Object[] elements, Comparator<Object> comparator) {
+		if (keys.length < 2) {
+			return;
+		}
+		mergeSort(keys, elements, comparator);
+	}
+
+	/**
+	 * The class of all keys, or null if they are not all of the same class.
+	 */
+	private static Class<?> commonClass(Object[] keys) {
+		if (keys[0] == null) {
+			return null;
+		}
+		Class<?> type = keys[0].getClass();
+		for (Object key : keys) {
+			if (key == null || key.getClass() != type) {
+				return null;
+			}
+		}
+		return type;
+	}
+
+	/**
+	 * Maps every key to a long whose unsigned order is the natural order of the keys.
+	 */
+	private static long[] unboxed(Object[] keys, Class<?> type) {
+		long[] ret = new long[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			if (type == Integer.class) {
+				ret[i] = ((Integer) keys[i]).longValue() - Integer.MIN_VALUE;
+			}
+			else if (type == Long.class) {
+				ret[i] = ((Long) keys[i]).longValue() ^ Long.MIN_VALUE;
+			}
+			else {
+				long bits = Double.doubleToLongBits(((Double) keys[i]).doubleValue());
+				if (bits < 0) {
+					ret[i] = ~bits;
+				}
+				else {
+					ret[i] = bits ^ Long.MIN_VALUE;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Stable counting sort by each byte of the keys, from the least significant. Bytes
+	 * that are the same in every key are skipped, so small integers take few passes.
+	 */
+	private static void radixSort(long[] keys, Object[] elements) {
+		int[][] counts = new int[DIGITS][RADIX];
+		for (long key : keys) {
+			for (int d = 0; d < DIGITS; d++) {
+				counts[d][digit(key, d)]++;
+			}
+		}
+		long[] fromKeys = keys;
+		Object[] fromElements = elements;
+		long[] toKeys = new long[keys.length];
+		Object[] toElements = new Object[elements.length];
+		for (int d = 0; d < DIGITS; d++) {
+			int[] count = counts[d];
+			if (count[digit(keys[0], d)] == keys.length) {
+				continue;
+			}
+			int start = 0;
+			for (int b = 0; b < RADIX; b++) {
+				int amount = count[b];
+				count[b] = start;
+				start += amount;
+			}
+			for (int i = 0; i < fromKeys.length; i++) {
+				int position = count[digit(fromKeys[i], d)]++;
+				toKeys[position] = fromKeys[i];
+				toElements[position] = fromElements[i];
+			}
+			long[] swapKeys = fromKeys;
+			fromKeys = toKeys;
+			toKeys = swapKeys;
+			Object[] swapElements = fromElements;
+			fromElements = toElements;
+			toElements = swapElements;
+		}
+		if (fromElements != elements) {
+			System.arraycopy(fromElements, 0, elements, 0, elements.length);
+		}
+	}
+
+	private static int digit(long key, int d) {
+		return (int) (key >>> (d * RADIX_BITS)) & DIGIT_MASK;
+	}
+
+	private static void mergeSort(Object[] keys, Object[] elements,
+			Comparator<Object> comparator) {
+		Object[] keyBuffer = keys.clone();
+		Object[] elementBuffer = elements.clone();
+		mergeSort(keyBuffer, elementBuffer, keys, elements, 0, keys.length, comparator);
+	}
+
+	/**
+	 * Sorts keys[from, to) and elements[from, to), which must have the same contents as
+	 * the source arrays in that range. The halves are sorted into the source arrays, and
+	 * then merged back, taking from the left half on ties.
+	 */
+	private static void mergeSort(Object[] sourceKeys, Object[] sourceElements,
+			Object[] keys, Object[] elements, int from, int to, Comparator<Object> comparator) {
+		if (to - from < INSERTION_SORT_CUTOFF) {
+			insertionSort(keys, elements, from, to, comparator);
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(keys, elements, sourceKeys, sourceElements, from, middle, comparator);
+		mergeSort(keys, elements, sourceKeys, sourceElements, middle, to, comparator);
+		if (comparator.compare(sourceKeys[middle - 1], sourceKeys[middle]) <= 0) {
+			System.arraycopy(sourceKeys, from, keys, from, to - from);
+			System.arraycopy(sourceElements, from, elements, from, to - from);
+			return;
+		}
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || left < middle
+					&& comparator.compare(sourceKeys[left], sourceKeys[right]) <= 0) {
+				keys[i] = sourceKeys[left];
+				elements[i] = sourceElements[left];
+				left++;
+			}
+			else {
+				keys[i] = sourceKeys[right];
+				elements[i] = sourceElements[right];
+				right++;
+			}
+		}
+	}
+
+	private static void insertionSort(Object[] keys, Object[] elements, int from, int to,
+			Comparator<Object> comparator) {
+		for (int i = from + 1; i < to; i++) {
+			Object key = keys[i];
+			Object element = elements[i];
+			int j = i;
+			while (j > from && comparator.compare(keys[j - 1], key) > 0) {
+				keys[j] = keys[j - 1];
+				elements[j] = elements[j - 1];
+				j--;
+			}
+			keys[j] = key;
+			elements[j] = element;
+		}
+	}
+
+	/*
+	 * Constructors
+	 */
+	private KeySort() {
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Compares keys known to be Strings.
+	 */
+	private static class StringComparator implements Comparator<Object> {
+		public int compare(Object o1, Object o2) {
+			return ((String) o1).compareTo((String) o2);
+		}
+	}
+}
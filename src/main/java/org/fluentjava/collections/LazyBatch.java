@@ -0,0 +1,73 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#ibatch(int)}: groups consecutive elements
+ * in lists of a given size; only the last one may be smaller.
+ *
+ * @param <E>
+ */
+class LazyBatch<E> implements ExtendedIterable<FluentList<E>> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final int size;
+	private final boolean reuseBuffer;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param iterable
+	 * @param size
+	 * @param reuseBuffer
+	 * If true, every chunk is the same list, cleared and refilled on each step of the
+	 * iteration.
+	 */
+	LazyBatch(Iterable<E> iterable, int size, boolean reuseBuffer) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive:" + size);
+		}
+		this.iterable = iterable;
+		this.size = size;
+		this.reuseBuffer = reuseBuffer;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<FluentList<E>> iterator() {
+		return new LazyBatchIterator();
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class LazyBatchIterator extends AbstractLookAheadIterator<FluentList<E>> {
+		private final Iterator<E> it = iterable.iterator();
+		private Sequence<E> buffer;
+
+		@Override
+		protected FluentList<E> computeNext() {
+			if (!it.hasNext()) {
+				return endOfData();
+			}
+			if (buffer == null || !reuseBuffer) {
+				buffer = new Sequence<E>();
+			}
+			else {
+				buffer.clear();
+			}
+			while (buffer.size() < size && it.hasNext()) {
+				buffer.add(it.next());
+			}
+			return buffer;
+		}
+	}
+}
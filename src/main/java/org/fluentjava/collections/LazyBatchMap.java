@@ -0,0 +1,81 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.fluentjava.closures.BatchClosure;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#imap(Object)} and
+ * {@link Enumerable#map(Object)} with a {@link BatchClosure}: calls it once per chunk of
+ * elements, and then returns the results one by one.
+ *
+ * @param <E>
+ * @param <R>
+ */
+class LazyBatchMap<E, R> implements ExtendedIterable<R> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final BatchClosure function;
+
+	/*
+	 * Constructors
+	 */
+	LazyBatchMap(Iterable<E> iterable, BatchClosure function) {
+		this.iterable = iterable;
+		this.function = function;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<R> iterator() {
+		return new LazyBatchMapIterator();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private List<?> call(List<E> chunk) {
+		List<?> results;
+		try {
+			results = function.callBatch(chunk);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		if (results == null || results.size() != chunk.size()) {
+			throw new EnumeratingException("Batch closure must return one result per "
+					+ "element: " + chunk.size() + " elements, " + results);
+		}
+		return results;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class LazyBatchMapIterator extends AbstractLookAheadIterator<R> {
+		/**
+		 * The chunks are only seen by the closure, which must not keep them.
+		 */
+		private final Iterator<FluentList<E>> chunks = new LazyBatch<E>(iterable,
+				function.batchSize(), true).iterator();
+		private Iterator<?> results;
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected R computeNext() {
+			while (results == null || !results.hasNext()) {
+				if (!chunks.hasNext()) {
+					return endOfData();
+				}
+				results = call(chunks.next()).iterator();
+			}
+			return (R) results.next();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#idistinct()} and
+ * {@link Enumerable#iuniqBy(Object)}: lets through the first element of each key, in
+ * iteration order. Keys already seen are kept in a {@link CompactHashSet}, unless the
+ * input is known to be sorted by key, in which case only the last key is kept.
+ * 
+ * @param <E>
+ */
+class LazyDistinct<E> implements ExtendedIterable<E> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final Closure keyGenerator;
+	private final boolean sortedInput;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param iterable
+	 * @param keyGenerator
+	 * If null, elements are their own keys.
+	 * @param sortedInput
+	 * If equal keys are known to be adjacent.
+	 */
+	LazyDistinct(Iterable<E> iterable, Closure keyGenerator, boolean sortedInput) {
+		this.iterable = iterable;
+		this.keyGenerator = keyGenerator;
+		this.sortedInput = sortedInput;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<E> iterator() {
+		if (sortedInput) {
+			return new AdjacentDistinctIterator();
+		}
+		return new SeenSetIterator();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private Object key(E element) {
+		if (keyGenerator == null) {
+			return element;
+		}
+		try {
+			return keyGenerator.call(element);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	private static boolean same(Object a, Object b) {
+		if (a == null) {
+			return b == null;
+		}
+		return a.equals(b);
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Remembers every key seen.
+	 */
+	private class SeenSetIterator extends AbstractLookAheadIterator<E> {
+		private final Iterator<E> it = iterable.iterator();
+		private final CompactHashSet seen = new CompactHashSet();
+
+		@Override
+		protected E computeNext() {
+			while (it.hasNext()) {
+				E e = it.next();
+				if (seen.add(key(e))) {
+					return e;
+				}
+			}
+			return endOfData();
+		}
+	}
+
+	/**
+	 * Remembers only the last key, which is enough for sorted input.
+	 */
+	private class AdjacentDistinctIterator extends AbstractLookAheadIterator<E> {
+		private final Iterator<E> it = iterable.iterator();
+		private boolean first = true;
+		private Object lastKey;
+
+		@Override
+		protected E computeNext() {
+			while (it.hasNext()) {
+				E e = it.next();
+				Object key = key(e);
+				if (first || !same(key, lastKey)) {
+					first = false;
+					lastKey = key;
+					return e;
+				}
+			}
+			return endOfData();
+		}
+	}
+}
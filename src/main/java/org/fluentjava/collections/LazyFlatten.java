@@ -0,0 +1,127 @@
+package org.fluentjava.collections;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#iflatten(int)} and
+ * {@link Enumerable#iflatMap(Object)}: walks nested iterables depth first, keeping an
+ * explicit stack of the iterators being walked, so nothing is copied and nesting is not
+ * limited by the call stack. When the depth is unlimited, an iterable that contains
+ * itself, directly or not, is rejected as soon as it is reached again; with a limited
+ * depth it is just flattened that many levels.
+ *
+ * @param <T>
+ * Type of the returned elements.
+ */
+class LazyFlatten<T> implements ExtendedIterable<T> {
+	/*
+	 * Constants
+	 */
+	static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+	/*
+	 * Variables
+	 */
+	private final Iterable<?> iterable;
+	private final Closure function;
+	private final int depth;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param iterable
+	 * @param function
+	 * If not null, applied to every element of the iterable before flattening it.
+	 * @param depth
+	 * How many levels of nested iterables are flattened.
+	 */
+	LazyFlatten(Iterable<?> iterable, Closure function, int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Cannot flatten negative depth:" + depth);
+		}
+		this.iterable = iterable;
+		this.function = function;
+		this.depth = depth;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<T> iterator() {
+		return new LazyFlattenIterator();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private Object call(Object arg) {
+		try {
+			return function.call(arg);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class LazyFlattenIterator extends AbstractLookAheadIterator<T> {
+		private final List<Iterator<?>> iterators = new ArrayList<Iterator<?>>();
+		private final List<Object> iterables = new ArrayList<Object>();
+		private final IdentityHashMap<Object, Boolean> walking;
+
+		LazyFlattenIterator() {
+			walking = new IdentityHashMap<Object, Boolean>();
+			push(iterable);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected T computeNext() {
+			while (!iterators.isEmpty()) {
+				Iterator<?> top = iterators.get(iterators.size() - 1);
+				if (!top.hasNext()) {
+					pop();
+					continue;
+				}
+				Object e = top.next();
+				if (function != null && iterators.size() == 1) {
+					e = call(e);
+				}
+				if (e instanceof Iterable<?> && iterators.size() <= depth) {
+					push((Iterable<?>) e);
+				}
+				else {
+					return (T) e;
+				}
+			}
+			return endOfData();
+		}
+
+		private void push(Iterable<?> nested) {
+			if (depth == UNLIMITED_DEPTH) {
+				if (walking.containsKey(nested)) {
+					throw new IllegalArgumentException("Circular references");
+				}
+				walking.put(nested, true);
+			}
+			iterables.add(nested);
+			iterators.add(nested.iterator());
+		}
+
+		private void pop() {
+			int last = iterators.size() - 1;
+			iterators.remove(last);
+			walking.remove(iterables.remove(last));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractExtendedIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class for {@link Enumerable#map(Object)}.
+ * 
+ * @param <E>
+ * @param <R>
+ */
+class LazyMap<E, R> implements ExtendedIterable<R> {
+	private Iterable<E> iterable;
+	private Closure function;
+
+	public LazyMap(Iterable<E> iterable, Closure function) {
+		this.iterable = iterable;
+		this.function = function;
+	}
+
+	private R call(Object arg) {
+		try {
+			return function.<R>invoke(arg);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	@Override
+	public ExtendedIterator<R> iterator() {
+		return new LazyMapIterator();
+	}
+
+	private class LazyMapIterator extends AbstractExtendedIterator<R> {
+		private Iterator<E> it;
+
+		public LazyMapIterator() {
+			it = iterable.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override
+		public R next() {
+			return call(it.next());
+
+		}
+	}
+}
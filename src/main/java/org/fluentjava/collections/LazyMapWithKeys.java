@@ -0,0 +1,59 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractExtendedIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class for {@link Enumerable#mapWithKeys(Object)}.
+ * 
+ * @param <E>
+ * @param <R>
+ */
+class LazyMapWithKeys<E, R> implements ExtendedIterable<Pair<E, R>> {
+	private Iterable<E> iterable;
+	private Closure function;
+
+	public LazyMapWithKeys(Iterable<E> iterable, Closure function) {
+		this.iterable = iterable;
+		this.function = function;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Pair<E, R> call(Object arg) {
+		try {
+			E realArg = (E) arg;
+			R result = function.<R>invoke(realArg);
+			return new Pair<E, R>(realArg, result);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	@Override
+	public ExtendedIterator<Pair<E, R>> iterator() {
+		return new LazyMapIterator();
+	}
+
+	private class LazyMapIterator extends AbstractExtendedIterator<Pair<E, R>> {
+		private Iterator<E> it;
+
+		public LazyMapIterator() {
+			it = iterable.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override
+		public Pair<E, R> next() {
+			return call(it.next());
+
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.fluentjava.iterators.AbstractExtendedIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+import org.fluentjava.iterators.ExtendedIteratorAdapter;
+import org.fluentjava.iterators.SkippableIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#iskip(int)}. Random access lists are read
+ * from index n on, and {@link SkippableIterator}s are asked to skip, so the first n
+ * elements are only walked through when there is no other way.
+ * 
+ * @param <E>
+ */
+class LazySkip<E> implements ExtendedIterable<E> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final List<E> randomAccessList;
+	private final int n;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param iterable
+	 * @param randomAccessList
+	 * The same elements as the iterable, if available as a random access list. May be null.
+	 * @param n
+	 */
+	LazySkip(Iterable<E> iterable, List<E> randomAccessList, int n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("Cannot skip negative ammount of elements:"
+					+ n);
+		}
+		this.iterable = iterable;
+		this.randomAccessList = randomAccessList;
+		this.n = n;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<E> iterator() {
+		if (randomAccessList != null) {
+			return new IndexedIterator<E>(randomAccessList, n);
+		}
+		Iterator<E> it = iterable.iterator();
+		if (it instanceof SkippableIterator<?>) {
+			((SkippableIterator<E>) it).skip(n);
+		}
+		else {
+			for (int i = 0; i < n && it.hasNext(); i++) {
+				it.next();
+			}
+		}
+		if (it instanceof ExtendedIterator<?>) {
+			return (ExtendedIterator<E>) it;
+		}
+		return new ExtendedIteratorAdapter<E>(it);
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Iterates a random access list by index.
+	 */
+	private static class IndexedIterator<E> extends AbstractExtendedIterator<E>
+			implements
+				SkippableIterator<E> {
+		private final List<E> list;
+		private int index;
+
+		IndexedIterator(List<E> list, int index) {
+			this.list = list;
+			this.index = index;
+		}
+
+		public boolean hasNext() {
+			return index < list.size();
+		}
+
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return list.get(index++);
+		}
+
+		public int skip(int count) {
+			int skipped = Math.max(0, Math.min(count, list.size() - index));
+			index += skipped;
+			return skipped;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package org.fluentjava.collections;
+
+import java.util.Iterator;
+
+import org.fluentjava.closures.Predicate;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#itakeWhile(Object)} and
+ * {@link Enumerable#idropWhile(Object)}: splits the elements at the first one for which
+ * the predicate evaluates false, returning either the elements before it, or it and all
+ * of the following ones. The predicate is not evaluated after that point.
+ * 
+ * @param <E>
+ */
+class LazyWhile<E> implements ExtendedIterable<E> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final Predicate predicate;
+	private final boolean take;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param iterable
+	 * @param predicate
+	 * @param take
+	 * true to return the leading elements that eval true, false to return the rest.
+	 */
+	LazyWhile(Iterable<E> iterable, Predicate predicate, boolean take) {
+		this.iterable = iterable;
+		this.predicate = predicate;
+		this.take = take;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<E> iterator() {
+		return new LazyWhileIterator();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private boolean eval(Object arg) {
+		try {
+			return predicate.eval(arg);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class LazyWhileIterator extends AbstractLookAheadIterator<E> {
+		private final Iterator<E> it = iterable.iterator();
+		private boolean split;
+
+		@Override
+		protected E computeNext() {
+			while (it.hasNext()) {
+				E e = it.next();
+				if (split) {
+					return e;
+				}
+				if (!eval(e)) {
+					split = true;
+					if (take) {
+						return endOfData();
+					}
+					return e;
+				}
+				if (take) {
+					return e;
+				}
+			}
+			return endOfData();
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.Iterator;
+
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Utility class to implement {@link Enumerable#islidingWindow(int, int)} and
+ * {@link Enumerable#itumblingWindow(int)}, and their versions with aggregators: returns a
+ * window of size consecutive elements every step elements. Only complete windows are
+ * returned.
+ *
+ * The last size elements are kept in a ring buffer, which grows as the first window
+ * fills, so a huge size costs nothing on few elements. With an aggregator, windows that
+ * overlap are updated by adding the element that enters and removing the one that leaves,
+ * and windows that do not overlap are aggregated each by an empty copy of the aggregator.
+ *
+ * @param <E>
+ * Type of the elements.
+ * @param <R>
+ * Type of the windows.
+ */
+class LazyWindow<E, R> implements ExtendedIterable<R> {
+	/*
+	 * Constants
+	 */
+	private static final int INITIAL_RING_LENGTH = 16;
+
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> iterable;
+	private final int size;
+	private final int step;
+	private final Aggregator<?> aggregator;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param iterable
+	 * @param size
+	 * @param step
+	 * @param aggregator
+	 * If null, windows are lists. If windows overlap (step is smaller than size), it must
+	 * be a {@link WindowAggregator}.
+	 */
+	LazyWindow(Iterable<E> iterable, int size, int step, Aggregator<?> aggregator) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Window size must be positive:" + size);
+		}
+		if (step <= 0) {
+			throw new IllegalArgumentException("Window step must be positive:" + step);
+		}
+		if (step < size && aggregator != null && !(aggregator instanceof WindowAggregator)) {
+			throw new IllegalArgumentException("Overlapping windows need a WindowAggregator");
+		}
+		this.iterable = iterable;
+		this.size = size;
+		this.step = step;
+		this.aggregator = aggregator;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<R> iterator() {
+		return new LazyWindowIterator();
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class LazyWindowIterator extends AbstractLookAheadIterator<R> {
+		private final Iterator<E> it = iterable.iterator();
+		private Object[] ring = new Object[Math.min(size, INITIAL_RING_LENGTH)];
+		private Aggregator<?> current;
+		private long read;
+
+		LazyWindowIterator() {
+			if (aggregator != null) {
+				current = aggregator.emptyCopy();
+			}
+		}
+
+		@Override
+		protected R computeNext() {
+			while (it.hasNext()) {
+				E e = it.next();
+				if (current != null) {
+					aggregate(e);
+				}
+				if (read == ring.length && read < size) {
+					grow();
+				}
+				ring[(int) (read % size)] = e;
+				read++;
+				if (read >= size && (read - size) % step == 0) {
+					return window();
+				}
+			}
+			return endOfData();
+		}
+
+		/**
+		 * Adds the element to the aggregator, if it belongs to a window, and removes the
+		 * one leaving the window, if windows overlap.
+		 */
+		private void aggregate(E e) {
+			try {
+				if (step < size) {
+					if (read >= size) {
+						((WindowAggregator<?>) current).remove(ring[(int) (read % size)]);
+					}
+					current.add(e);
+				}
+				else if (read % step < size) {
+					current.add(e);
+				}
+			} catch (Exception ex) {
+				throw new EnumeratingException(ex);
+			}
+		}
+
+		/**
+		 * Doubles the ring, up to size. Only called before it wraps around, so elements
+		 * keep their positions.
+		 */
+		private void grow() {
+			Object[] newRing = new Object[(int) Math.min(size, 2L * ring.length)];
+			System.arraycopy(ring, 0, newRing, 0, ring.length);
+			ring = newRing;
+		}
+
+		private R window() {
+			if (current == null) {
+				Sequence<Object> window = new Sequence<Object>();
+				for (long i = read - size; i < read; i++) {
+					window.add(ring[(int) (i % size)]);
+				}
+				return as(window);
+			}
+			Object result = current.result();
+			if (step >= size) {
+				current = aggregator.emptyCopy();
+			}
+			return as(result);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package org.fluentjava.collections;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractLookAheadIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+import org.fluentjava.iterators.ZipCursor;
+
+/**
+ * Utility class to implement {@link Enumerable#izipWith(Object, Iterable...)}: calls the
+ * closure with the elements of every source at the same position, passing the
+ * {@link ZipCursor#values()} array itself as arguments, so no tuple is created.
+ *
+ * @param <T>
+ * Type of the results.
+ */
+class LazyZipWith<T> implements ExtendedIterable<T> {
+	/*
+	 * Variables
+	 */
+	private final Iterable<?>[] sources;
+	private final Closure function;
+
+	/*
+	 * Constructors
+	 */
+	LazyZipWith(Closure function, Iterable<?>... sources) {
+		this.function = function;
+		this.sources = sources;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public ExtendedIterator<T> iterator() {
+		return new LazyZipWithIterator();
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	private class LazyZipWithIterator extends AbstractLookAheadIterator<T> {
+		private final ZipCursor cursor = new ZipCursor(sources);
+
+		@Override
+		protected T computeNext() {
+			if (!cursor.next()) {
+				return endOfData();
+			}
+			try {
+				return function.<T>invoke(cursor.values());
+			} catch (Exception e) {
+				throw new EnumeratingException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package org.fluentjava.collections;
+
+/**
+ * Operations of {@link Enumerable} that find elements by their rank, without sorting all
+ * of them: the greatest or least n, the one at a position or percentile, and random
+ * samples.
+ * 
+ * @param <E>
+ * Type of Elements.
+ */
+public interface OrderStatistics<E> {
+	/**
+	 * Returns the n greatest elements according to their natural order, from the greatest
+	 * to the least. Equal elements keep their iteration order. Uses a bounded heap: takes
+	 * O(log n) time per element and O(n) memory, even on lazy enumerables.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> maxN(int n) throws EnumeratingException;
+
+	/**
+	 * Returns the n least elements according to their natural order, from the least to
+	 * the greatest. See {@link #maxN(int)}.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> minN(int n) throws EnumeratingException;
+
+	/**
+	 * Returns the n elements e whose closure.call(e) are the greatest, from the greatest to
+	 * the least, without sorting. Equal keys keep their iteration order, so it is not the
+	 * last n elements of {@link Enumerable#sortBy(Object)} reversed. See {@link #maxN(int)}.
+	 * 
+	 * @param n
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> topBy(int n, Object closure) throws EnumeratingException;
+
+	/**
+	 * Returns the n elements e whose closure.call(e) are the least, from the least to the
+	 * greatest. Same as {@link Enumerable#sortBy(Object)} followed by
+	 * {@link Enumerable#take(int)}, but without sorting. See {@link #maxN(int)}.
+	 * 
+	 * @param n
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> bottomBy(int n, Object closure) throws EnumeratingException;
+
+	/**
+	 * Returns the element that would be at position k (from 0) if the elements were sorted
+	 * by their natural order, as sort().get(k), but without sorting: a copy of the
+	 * elements is partially reordered by introselect, in expected linear time.
+	 * 
+	 * @param k
+	 * @return
+	 * @throws EnumeratingException
+	 * @throws IndexOutOfBoundsException
+	 * If there are not more than k elements.
+	 */
+	E nth(int k) throws EnumeratingException;
+
+	/**
+	 * Returns the element that would be at position k (from 0) if the elements were sorted
+	 * by {@link Enumerable#sortBy(Object)}, but without sorting. See {@link #nth(int)}. Equal keys
+	 * may be returned in any order.
+	 * 
+	 * @param k
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 * @throws IndexOutOfBoundsException
+	 * If there are not more than k elements.
+	 */
+	E nthBy(int k, Object closure) throws EnumeratingException;
+
+	/**
+	 * Returns the median element according to the natural order, the lower one if there is
+	 * an even number of elements: nth((count() - 1) / 2). Returns null if there are no
+	 * elements.
+	 * 
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	E median() throws EnumeratingException;
+
+	/**
+	 * Returns the elements at the given percentiles (from 0 to 100), according to the
+	 * natural order, by the nearest rank method: for p, the least element such that at
+	 * least p percent of the elements are smaller or equal to it. All of them are selected
+	 * on the same copy of the elements, each in the part left by the previous ones. Returns
+	 * nulls if there are no elements.
+	 * 
+	 * For instance, percentiles(50, 90, 99) returns the median, the p90 and the p99.
+	 * 
+	 * @param percentiles
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> percentiles(double... percentiles) throws EnumeratingException;
+
+	/**
+	 * Returns n elements picked at random, every subset of n elements being equally
+	 * likely, in a single pass that keeps only n elements in memory (reservoir sampling,
+	 * by Algorithm L). Random access lists (such as {@link Sequence}) jump over the
+	 * elements not picked, instead of iterating them. Returns all the elements if there
+	 * are no more than n. The sample comes in no particular order.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> sample(int n) throws EnumeratingException;
+
+	/**
+	 * Same as {@link #sample(int)}, with a seed for the random numbers, so the same
+	 * elements give the same sample.
+	 * 
+	 * @param n
+	 * @param seed
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> sample(int n, long seed) throws EnumeratingException;
+
+	/**
+	 * Returns n elements picked at random, without replacement, each one with a
+	 * probability proportional to the weight the closure returns for it (a non negative
+	 * {@link Number}), in a single pass that keeps only n elements in memory (Algorithm
+	 * A-ExpJ). Elements of weight 0 are never picked. Returns all the elements of positive
+	 * weight if there are no more than n. The sample comes in no particular order.
+	 * 
+	 * @param n
+	 * @param closure
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> weightedSample(int n, Object closure) throws EnumeratingException;
+
+	/**
+	 * Same as {@link #weightedSample(int, Object)}, with a seed for the random numbers, so
+	 * the same elements give the same sample.
+	 * 
+	 * @param n
+	 * @param closure
+	 * @param seed
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<E> weightedSample(int n, Object closure, long seed) throws EnumeratingException;
+}
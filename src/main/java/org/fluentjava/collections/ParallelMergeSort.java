@@ -0,0 +1,227 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Implements {@link Enumerable#parallelSort(Object)} and its variants: a stable merge sort
+ * over an array. The array is split in one run per thread, the runs are sorted
+ * concurrently by {@link Arrays#sort(Object[], int, int, Comparator)} (itself a stable
+ * merge sort), and then merged pairwise, level by level, alternating between the array
+ * and a buffer. Every merge is split in independent pieces, by binary searching the
+ * elements of the right run that go before each piece of the left one, so that the last
+ * levels, which have few merges, keep every thread busy.
+ *
+ * Arrays with less than {@link #SEQUENTIAL_CUTOFF} elements per thread are sorted
+ * sequentially.
+ */
+final class ParallelMergeSort {
+	/*
+	 * Constants
+	 */
+	static final int SEQUENTIAL_CUTOFF = 8192;
+
+	/*
+	 * Variables
+	 */
+	private final Comparator<Object> comparator;
+	private final int threads;
+	private Object[] source;
+	private Object[] target;
+
+	/*
+	 * Constructors
+	 */
+	private ParallelMergeSort(Object[] array, Comparator<?> comparator, int threads) {
+		this.comparator = as(comparator);
+		this.threads = threads;
+		this.source = array;
+		this.target = new Object[array.length];
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Sorts the array in place. Equal elements keep their order.
+	 *
+	 * @param <T>
+	 * @param array
+	 * @param comparator
+	 * @throws EnumeratingException
+	 */
+	static <T> void sort(T[] array, Comparator<? super T> comparator)
+			throws EnumeratingException {
+		int runs = Math.min(ParallelTasks.parallelism(), array.length / SEQUENTIAL_CUTOFF);
+		sort(array, comparator, runs);
+	}
+
+	/**
+	 * Sorts the array in place, split in the given amount of runs.
+	 *
+	 * @param <T>
+	 * @param array
+	 * @param comparator
+	 * @param runs
+	 * @throws EnumeratingException
+	 */
+	static <T> void sort(T[] array, Comparator<? super T> comparator, int runs)
+			throws EnumeratingException {
+		if (runs <= 1 || array.length < runs) {
+			Arrays.sort(array, comparator);
+			return;
+		}
+		int[] bounds = new int[runs + 1];
+		for (int i = 0; i <= runs; i++) {
+			bounds[i] = (int) ((long) array.length * i / runs);
+		}
+		new ParallelMergeSort(array, comparator, runs).sort(bounds);
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private void sort(int[] bounds) {
+		Object[] array = source;
+		sortRuns(bounds);
+		int[] runs = bounds;
+		while (runs.length > 2) {
+			runs = mergeRuns(runs);
+			Object[] swap = source;
+			source = target;
+			target = swap;
+		}
+		if (source != array) {
+			System.arraycopy(source, 0, array, 0, array.length);
+		}
+	}
+
+	private void sortRuns(int[] bounds) {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < bounds.length - 1; i++) {
+			final int from = bounds[i];
+			final int to = bounds[i + 1];
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					Arrays.sort(source, from, to, comparator);
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(tasks);
+	}
+
+	/**
+	 * Merges every pair of consecutive runs of source into target. A last run without a
+	 * pair is copied.
+	 *
+	 * @return The bounds of the merged runs.
+	 */
+	private int[] mergeRuns(int[] bounds) {
+		int runs = bounds.length - 1;
+		int pairs = runs / 2;
+		int pieces = Math.max(1, threads / pairs);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		int[] merged = new int[(runs + 1) / 2 + 1];
+		for (int p = 0; p < pairs; p++) {
+			addMerges(tasks, bounds[2 * p], bounds[2 * p + 1], bounds[2 * p + 2], pieces);
+			merged[p + 1] = bounds[2 * p + 2];
+		}
+		if (runs % 2 == 1) {
+			int from = bounds[runs - 1];
+			System.arraycopy(source, from, target, from, bounds[runs] - from);
+			merged[merged.length - 1] = bounds[runs];
+		}
+		ParallelTasks.invokeAll(tasks);
+		return merged;
+	}
+
+	/**
+	 * Splits the merge of source[from, middle) and source[middle, to) in pieces. Each
+	 * piece takes a slice of the left run and the elements of the right run that are
+	 * smaller than the first element of the next slice, so equal elements of the left run
+	 * still go first.
+	 */
+	private void addMerges(List<Callable<Void>> tasks, int from, int middle, int to,
+			int pieces) {
+		int leftStart = from;
+		int rightStart = middle;
+		for (int i = 1; i <= pieces; i++) {
+			int leftEnd = middle;
+			int rightEnd = to;
+			if (i < pieces) {
+				leftEnd = from + (int) ((long) (middle - from) * i / pieces);
+				rightEnd = lowerBound(middle, to, source[leftEnd]);
+			}
+			int offset = leftStart + rightStart - middle;
+			tasks.add(new Merge(leftStart, leftEnd, rightStart, rightEnd, offset));
+			leftStart = leftEnd;
+			rightStart = rightEnd;
+		}
+	}
+
+	/**
+	 * Index of the first element of source[from, to) that is not smaller than key.
+	 */
+	private int lowerBound(int from, int to, Object key) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(source[middle], key) < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Merges two sorted slices of source into target, starting at an offset. Takes from
+	 * the left slice on ties, so it is stable.
+	 */
+	private class Merge implements Callable<Void> {
+		private final Object[] from = source;
+		private final Object[] to = target;
+		private final int leftStart;
+		private final int leftEnd;
+		private final int rightStart;
+		private final int rightEnd;
+		private final int offset;
+
+		Merge(int leftStart, int leftEnd, int rightStart, int rightEnd, int offset) {
+			this.leftStart = leftStart;
+			this.leftEnd = leftEnd;
+			this.rightStart = rightStart;
+			this.rightEnd = rightEnd;
+			this.offset = offset;
+		}
+
+		public Void call() {
+			int left = leftStart;
+			int right = rightStart;
+			int out = offset;
+			while (left < leftEnd && right < rightEnd) {
+				if (comparator.compare(from[right], from[left]) < 0) {
+					to[out++] = from[right++];
+				}
+				else {
+					to[out++] = from[left++];
+				}
+			}
+			System.arraycopy(from, left, to, out, leftEnd - left);
+			System.arraycopy(from, right, to, out + leftEnd - left, rightEnd - right);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package org.fluentjava.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.fluentjava.closures.Closure;
+
+/**
+ * Implements {@link Enumerable#parallelReduce(Object, Object, Object)}. The elements are
+ * split in chunks of {@link #CHUNK_SIZE}, each chunk is folded from the identity by the
+ * accumulator, and the partial results are combined pairwise, level by level. Chunks
+ * depend only on the number of elements (never on the number of threads or on timing),
+ * so the result is always the same for associative operations.
+ * 
+ * @param <E>
+ * Type of elements.
+ * @param <T>
+ * Type of the result.
+ */
+class ParallelReduction<E, T> {
+	/*
+	 * Constants
+	 */
+	static final int CHUNK_SIZE = 4096;
+
+	/*
+	 * Variables
+	 */
+	private final List<E> elements;
+	private final T identity;
+	private final Closure accumulator;
+	private final Closure combiner;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param elements
+	 * A random access list.
+	 * @param identity
+	 * @param accumulator
+	 * @param combiner
+	 */
+	ParallelReduction(List<E> elements, T identity, Closure accumulator, Closure combiner) {
+		this.elements = elements;
+		this.identity = identity;
+		this.accumulator = accumulator;
+		this.combiner = combiner;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	T reduce() throws EnumeratingException {
+		int chunks = (elements.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if (chunks <= 1) {
+			return fold(0, elements.size());
+		}
+		List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>();
+		int workers = Math.min(chunks, ParallelTasks.parallelism());
+		for (int w = 0; w < workers; w++) {
+			tasks.add(new ChunkFolder(chunks * w / workers, chunks * (w + 1) / workers));
+		}
+		List<T> partials = new ArrayList<T>(chunks);
+		for (List<T> folded : ParallelTasks.invokeAll(tasks)) {
+			partials.addAll(folded);
+		}
+		return combineTree(partials);
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private T fold(int from, int to) {
+		try {
+			T result = identity;
+			for (int i = from; i < to; i++) {
+				result = accumulator.<T>invoke(result, elements.get(i));
+			}
+			return result;
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	private T combineTree(List<T> partials) {
+		try {
+			List<T> level = partials;
+			while (level.size() > 1) {
+				List<T> next = new ArrayList<T>((level.size() + 1) / 2);
+				for (int i = 0; i + 1 < level.size(); i += 2) {
+					next.add(combiner.<T>invoke(level.get(i), level.get(i + 1)));
+				}
+				if (level.size() % 2 == 1) {
+					next.add(level.get(level.size() - 1));
+				}
+				level = next;
+			}
+			return level.get(0);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	/**
+	 * Folds a contiguous range of chunks, one partial result per chunk.
+	 */
+	private class ChunkFolder implements Callable<List<T>> {
+		private final int firstChunk;
+		private final int lastChunk;
+
+		public ChunkFolder(int firstChunk, int lastChunk) {
+			this.firstChunk = firstChunk;
+			this.lastChunk = lastChunk;
+		}
+
+		public List<T> call() {
+			List<T> ret = new ArrayList<T>(lastChunk - firstChunk);
+			for (int chunk = firstChunk; chunk < lastChunk; chunk++) {
+				int from = chunk * CHUNK_SIZE;
+				ret.add(fold(from, Math.min(from + CHUNK_SIZE, elements.size())));
+			}
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package org.fluentjava.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs independent tasks concurrently for the parallel operations of {@link Enumerable}.
+ * Each invocation uses its own short lived pool, so tasks may themselves run parallel
+ * operations without starving each other.
+ */
+final class ParallelTasks {
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * How many threads are worth using on this machine.
+	 * 
+	 * @return
+	 */
+	static int parallelism() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Runs all tasks and returns their results, in the same order of the tasks. Exceptions
+	 * thrown by the tasks are wrapped around {@link EnumeratingException}.
+	 * 
+	 * @param <T>
+	 * @param tasks
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	static <T> List<T> invokeAll(List<? extends Callable<T>> tasks)
+			throws EnumeratingException {
+		if (tasks.size() == 1) {
+			return runInCurrentThread(tasks.get(0));
+		}
+		return invokeAll(tasks, Math.min(tasks.size(), parallelism()));
+	}
+
+	/**
+	 * Like {@link #invokeAll(List)}, but runs every task on its own thread, for tasks that
+	 * wait for each other.
+	 * 
+	 * @param <T>
+	 * @param tasks
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	static <T> List<T> invokeEachInOwnThread(List<? extends Callable<T>> tasks)
+			throws EnumeratingException {
+		return invokeAll(tasks, tasks.size());
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private static <T> List<T> invokeAll(List<? extends Callable<T>> tasks, int threads) {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads),
+				new DaemonFactory());
+		try {
+			List<Future<T>> futures = new ArrayList<Future<T>>();
+			for (Callable<T> task : tasks) {
+				futures.add(pool.submit(task));
+			}
+			List<T> ret = new ArrayList<T>(futures.size());
+			for (Future<T> future : futures) {
+				ret.add(future.get());
+			}
+			return ret;
+		} catch (ExecutionException e) {
+			throw wrap(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EnumeratingException(e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static <T> List<T> runInCurrentThread(Callable<T> task) {
+		try {
+			List<T> ret = new ArrayList<T>(1);
+			ret.add(task.call());
+			return ret;
+		} catch (Exception e) {
+			throw wrap(e);
+		}
+	}
+
+	private static EnumeratingException wrap(Throwable cause) {
+		if (cause instanceof EnumeratingException) {
+			return (EnumeratingException) cause;
+		}
+		return new EnumeratingException(cause);
+	}
+
+	private ParallelTasks() {
+	}
+
+	/**
+	 * Creates daemon threads, so that a forgotten pool never holds the JVM.
+	 */
+	private static class DaemonFactory implements ThreadFactory {
+		private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+		public Thread newThread(Runnable r) {
+			Thread thread = defaultFactory.newThread(r);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.fluentjava.collections;
+
+/**
+ * Operations of {@link Enumerable} about how a pipeline of lazy methods is evaluated:
+ * caching its elements, sharing one iteration among several consumers, and profiling
+ * its stages.
+ * 
+ * @param <E>
+ * Type of Elements.
+ */
+public interface Pipelining<E> {
+	/**
+	 * Returns an enumerable with the same elements, that keeps the elements as they are
+	 * produced, so that iterating again does not evaluate closures again. Elements are
+	 * kept as they are consumed, so a partial iteration only evaluates what it reads.
+	 * 
+	 * The kept elements are dropped when a {@link TracksModifications} collection this
+	 * enumerable is made from (such as the {@link Sequence} behind a chain of lazy
+	 * methods) is modified, and they are produced again on the next iteration. Changes to
+	 * other sources are not noticed. Not thread safe.
+	 * 
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> cache() throws EnumeratingException;
+
+	/**
+	 * Alias to {@link #cache()}.
+	 * 
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<E> memoize() throws EnumeratingException;
+
+	/**
+	 * Same as {@link #tee(int, int)}, with a buffer of 1024 elements.
+	 * 
+	 * @param branches
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<Enumerable<E>> tee(int branches) throws EnumeratingException;
+
+	/**
+	 * Splits a single iteration over this enumerable into several branches, each of which
+	 * returns all the elements. Elements are produced once, when the first branch asks
+	 * for them, and kept until every branch has returned them. Each branch can only be
+	 * iterated once, and none can get more than bufferSize elements ahead of another, or
+	 * an IllegalStateException is thrown. To consume branches at different speeds, use
+	 * {@link #multicast(Iterable, int)}.
+	 * 
+	 * @param branches
+	 * @param bufferSize
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<Enumerable<E>> tee(int branches, int bufferSize) throws EnumeratingException;
+
+	/**
+	 * Same as {@link #multicast(Iterable, int)}, with a buffer of 1024 elements.
+	 * 
+	 * @param consumers
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<Object> multicast(Object... consumers) throws EnumeratingException;
+
+	/**
+	 * Runs several consumers over a single iteration of this enumerable. Each consumer is
+	 * called with its own branch of a {@link #tee(int, int)}, on its own thread, and the
+	 * list of their results is returned in order. For instance, multicast(asList("toList",
+	 * "count"), 64) returns the list of elements and the amount of them, evaluating lazy
+	 * closures once. A consumer that gets bufferSize elements ahead of the slowest one
+	 * waits for it. Consumers may stop before the end. For consumers that do not need
+	 * threads, see {@link Enumerable#aggregate(Aggregator...)}.
+	 * 
+	 * @param consumers
+	 * @param bufferSize
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<Object> multicast(Iterable<?> consumers, int bufferSize)
+			throws EnumeratingException;
+
+	/**
+	 * Returns an enumerable with the same elements, from which lazy methods make a
+	 * profiled pipeline: every stage counts the elements it returns, and measures the time
+	 * spent and the bytes allocated in it, without counting the stages it reads from, so
+	 * mostly by its closures. Allocations are only measured on JVMs that tell them per
+	 * thread. Measures are shown by {@link #explain()} on the last stage. They are not
+	 * synchronized, and add a cost to every element, so profile pipelines to find which
+	 * stage is slow, then drop the call.
+	 * 
+	 * @return
+	 */
+	Enumerable<E> profile();
+
+	/**
+	 * Describes the pipeline of lazy methods this enumerable is made from: one line per
+	 * stage, with the method and its closure, followed by the stages it reads from,
+	 * indented. Closures given as method names, which are invoked by reflection, are
+	 * marked as reflective. On pipelines made from {@link #profile()}, each line also
+	 * shows the elements the stage read and returned, its time and its allocated bytes.
+	 * For instance, list.profile().iselect("isEmpty").imap(closure).explain() returns
+	 * something like:
+	 * 
+	 * <pre>
+	 * imap(Example$1) [in: 3, out: 3, time: 0.012 ms, allocated: 48 bytes]
+	 *   iselect("isEmpty" reflective) [in: 10, out: 3, time: 0.250 ms, allocated: 0 bytes]
+	 *     profile() [out: 10, time: 0.004 ms, allocated: 0 bytes]
+	 *       Sequence
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	String explain();
+}
@@ -0,0 +1,221 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.fluentjava.closures.Closure;
+
+/**
+ * Implements {@link Enumerable#sample(int)} and {@link Enumerable#weightedSample(int,
+ * Object)}: picks n elements at random in a single pass, keeping only n of them in memory.
+ *
+ * Uniform samples use Algorithm L: after the reservoir is filled with the first n
+ * elements, instead of drawing a random number per element, it draws how many elements
+ * to skip until the next one that enters the reservoir, so it takes O(n (1 + log(N/n)))
+ * random numbers. Skipped elements are still iterated, unless there is a random access
+ * list behind the elements, in which case it jumps straight to the next index.
+ *
+ * Weighted samples use Algorithm A-ExpJ: every element gets the key u^(1/w), for a
+ * random u and its weight w, and the n greatest keys are kept in a {@link BoundedHeap}.
+ * Likewise, it draws the weight to skip until the next element whose key beats the least
+ * one kept. Keys are kept as their logarithms, so that small weights do not underflow.
+ *
+ * Samples come in no particular order.
+ */
+final class Reservoir {
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Picks n elements, each subset of n elements with the same probability. If there are
+	 * n elements or less, returns all of them.
+	 *
+	 * @param <E>
+	 * @param iterable
+	 * @param list
+	 * A random access list with the same elements, or null.
+	 * @param n
+	 * @param random
+	 * @return
+	 */
+	static <E> FluentList<E> sample(Iterable<E> iterable, List<E> list, int n, Random random) {
+		checkAmount(n);
+		List<Object> reservoir = new ArrayList<Object>();
+		if (list != null) {
+			sample(list, n, reservoir, random);
+		}
+		else {
+			sample(iterable.iterator(), n, reservoir, random);
+		}
+		FluentList<E> ret = new Sequence<E>();
+		for (Object each : reservoir) {
+			E e = as(each);
+			ret.add(e);
+		}
+		return ret;
+	}
+
+	/**
+	 * Picks n elements, without replacement, each one with probability proportional to
+	 * its weight among the ones left. Elements of weight 0 are never picked. If there are
+	 * n elements or less with positive weights, returns all of them.
+	 *
+	 * @param <E>
+	 * @param iterable
+	 * @param n
+	 * @param weight
+	 * Returns a non negative {@link Number} for each element.
+	 * @param random
+	 * @return
+	 * @throws EnumeratingException
+	 * If weight throws an exception.
+	 */
+	static <E> FluentList<E> weightedSample(Iterable<E> iterable, int n, Closure weight,
+			Random random) throws EnumeratingException {
+		checkAmount(n);
+		BoundedHeap<E> heap = new BoundedHeap<E>(n, new ComparableComparator<Object>());
+		if (n == 0) {
+			return heap.drainGreatestFirst();
+		}
+		double toSkip = 0;
+		for (E e : iterable) {
+			double w = weightOf(weight, e);
+			if (w == 0) {
+				continue;
+			}
+			if (!heap.isFull()) {
+				heap.offer(Math.log(nextOpen(random)) / w, e);
+				if (heap.isFull()) {
+					toSkip = weightToSkip(heap, random);
+				}
+			}
+			else if (toSkip > w) {
+				toSkip -= w;
+			}
+			else {
+				heap.offer(keyAboveLeast(heap, w, random), e);
+				toSkip = weightToSkip(heap, random);
+			}
+		}
+		return heap.drainGreatestFirst();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	/**
+	 * Fills the reservoir, which grows only as elements arrive, so a large n costs
+	 * nothing when there are few elements.
+	 */
+	private static void sample(List<?> list, int n, List<Object> reservoir, Random random) {
+		reservoir.addAll(list.subList(0, Math.min(n, list.size())));
+		if (reservoir.size() < n || n == 0) {
+			return;
+		}
+		double w = nextFactor(n, random);
+		long i = n - 1 + skip(w, random) + 1;
+		while (i < list.size()) {
+			reservoir.set(random.nextInt(n), list.get((int) i));
+			w *= nextFactor(n, random);
+			i += skip(w, random) + 1;
+		}
+	}
+
+	private static void sample(Iterator<?> iterator, int n, List<Object> reservoir,
+			Random random) {
+		while (reservoir.size() < n && iterator.hasNext()) {
+			reservoir.add(iterator.next());
+		}
+		if (reservoir.size() < n || n == 0) {
+			return;
+		}
+		double w = nextFactor(n, random);
+		while (true) {
+			for (long skip = skip(w, random); skip > 0; skip--) {
+				if (!iterator.hasNext()) {
+					return;
+				}
+				iterator.next();
+			}
+			if (!iterator.hasNext()) {
+				return;
+			}
+			reservoir.set(random.nextInt(n), iterator.next());
+			w *= nextFactor(n, random);
+		}
+	}
+
+	/**
+	 * The factor by which Algorithm L shrinks W, the greatest of n uniform variables.
+	 */
+	private static double nextFactor(int n, Random random) {
+		return Math.exp(Math.log(nextOpen(random)) / n);
+	}
+
+	/**
+	 * How many elements to skip before the next one that enters the reservoir. log1p keeps
+	 * log(1 - w) from rounding to 0 when w is tiny, and the result is clamped between 0 and
+	 * a cap that keeps adding it to an index from overflowing.
+	 */
+	private static long skip(double w, Random random) {
+		double skip = Math.floor(Math.log(nextOpen(random)) / Math.log1p(-w));
+		return (long) Math.max(0, Math.min(skip, Long.MAX_VALUE / 2));
+	}
+
+	/**
+	 * The total weight of the elements to skip before the next one whose key beats the
+	 * least key kept.
+	 */
+	private static double weightToSkip(BoundedHeap<?> heap, Random random) {
+		double leastKey = (Double) heap.leastKey();
+		return Math.log(nextOpen(random)) / leastKey;
+	}
+
+	/**
+	 * A key for an element of weight w, known to beat the least key kept: log(u) / w, for
+	 * u uniform between the least key raised to w, and 1.
+	 */
+	private static double keyAboveLeast(BoundedHeap<?> heap, double w, Random random) {
+		double least = Math.exp((Double) heap.leastKey() * w);
+		double u = least + (1 - least) * random.nextDouble();
+		return Math.log(u) / w;
+	}
+
+	private static double weightOf(Closure closure, Object element) {
+		Object weight;
+		try {
+			weight = closure.call(element);
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+		double ret = ((Number) weight).doubleValue();
+		if (!(ret >= 0)) {
+			throw new IllegalArgumentException("Weight must be non negative:" + weight);
+		}
+		return ret;
+	}
+
+	private static void checkAmount(int n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("Cannot sample negative amount of elements:"
+					+ n);
+		}
+	}
+
+	/**
+	 * Uniform in (0, 1], so that its logarithm is finite.
+	 */
+	private static double nextOpen(Random random) {
+		return 1 - random.nextDouble();
+	}
+
+	/*
+	 * Constructors
+	 */
+	private Reservoir() {
+	}
+}
@@ -0,0 +1,223 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Implements {@link Enumerable#nth(int)} and its variants: finds the elements that would
+ * be at some positions if the elements were sorted by their keys, without sorting them,
+ * by introselect. Each step partitions the range that holds the position in three, around
+ * the median of three keys: less than, equal to, and greater than it, so that many equal
+ * keys end the search instead of slowing it down. Expected time is linear; if the
+ * partitions keep being unbalanced, the range left is sorted instead, so it is never
+ * worse than O(n log n).
+ *
+ * Keys and elements are lists of the same size, swapped together; they can be the same
+ * list, when elements are their own keys. Several positions are selected from the
+ * smallest, each one in the range that is left after the previous one.
+ */
+final class Selection {
+	/*
+	 * Constants
+	 */
+	private static final int INSERTION_SORT_CUTOFF = 8;
+
+	/*
+	 * Variables
+	 */
+	private final List<Object> keys;
+	private final List<Object> elements;
+	private final Comparator<Object> comparator;
+
+	/*
+	 * Constructors
+	 */
+	private Selection(List<Object> keys, List<Object> elements, Comparator<Object> comparator) {
+		this.keys = keys;
+		this.elements = elements;
+		this.comparator = comparator;
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Reorders both lists so that, for each position, the element there is the one that
+	 * would be there if they were sorted by the keys, smaller or equal keys are before it,
+	 * and greater or equal keys are after it.
+	 *
+	 * @param <E>
+	 * @param keys
+	 * @param elements
+	 * @param comparator
+	 * Of the keys.
+	 * @param positions
+	 * @return The elements at the positions, in the order of the positions.
+	 */
+	static <E> FluentList<E> select(List<Object> keys, List<Object> elements,
+			Comparator<Object> comparator, int... positions) {
+		int[] ascending = positions.clone();
+		Arrays.sort(ascending);
+		Selection selection = new Selection(keys, elements, comparator);
+		int from = 0;
+		for (int position : ascending) {
+			if (position < 0 || position >= keys.size()) {
+				throw new IndexOutOfBoundsException("Position: " + position + ", Size: "
+						+ keys.size());
+			}
+			if (position >= from) {
+				selection.select(position, from, keys.size());
+				from = position + 1;
+			}
+		}
+		FluentList<E> ret = new Sequence<E>();
+		for (int position : positions) {
+			E e = as(elements.get(position));
+			ret.add(e);
+		}
+		return ret;
+	}
+
+	/**
+	 * The positions of the given percentiles, in a list of the given size.
+	 *
+	 * @param size
+	 * @param percentiles
+	 * @return
+	 */
+	static int[] percentilePositions(int size, double... percentiles) {
+		int[] ret = new int[percentiles.length];
+		for (int i = 0; i < percentiles.length; i++) {
+			ret[i] = percentilePosition(percentiles[i], size);
+		}
+		return ret;
+	}
+
+	/**
+	 * The position of the given percentile by the nearest rank method: the smallest
+	 * position such that at least percentile percent of the elements are at or before it.
+	 *
+	 * @param percentile
+	 * From 0 to 100.
+	 * @param size
+	 * @return
+	 */
+	private static int percentilePosition(double percentile, int size) {
+		if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+			throw new IllegalArgumentException("Percentile must be from 0 to 100:" + percentile);
+		}
+		int rank = (int) Math.ceil(percentile / 100 * size);
+		return Math.max(rank, 1) - 1;
+	}
+
+	/*
+	 * Other Methods
+	 */
+	/**
+	 * Selects position in [from, to).
+	 */
+	private void select(int position, int from, int to) {
+		int low = from;
+		int high = to;
+		int budget = 2 * (Integer.SIZE - Integer.numberOfLeadingZeros(to - from));
+		while (high - low > INSERTION_SORT_CUTOFF) {
+			if (budget-- == 0) {
+				sort(low, high);
+				return;
+			}
+			int[] equal = partition(low, high);
+			if (position < equal[0]) {
+				high = equal[0];
+			}
+			else if (position >= equal[1]) {
+				low = equal[1];
+			}
+			else {
+				return;
+			}
+		}
+		sort(low, high);
+	}
+
+	/**
+	 * Partitions [from, to) around the median of its first, middle and last keys.
+	 *
+	 * @return The range of the keys equal to the pivot.
+	 */
+	private int[] partition(int from, int to) {
+		Object pivot = medianOfThree(from, (from + to) >>> 1, to - 1);
+		int less = from;
+		int i = from;
+		int greater = to;
+		while (i < greater) {
+			int comparison = comparator.compare(keys.get(i), pivot);
+			if (comparison < 0) {
+				swap(less++, i++);
+			}
+			else if (comparison > 0) {
+				swap(i, --greater);
+			}
+			else {
+				i++;
+			}
+		}
+		return new int[] {less, greater};
+	}
+
+	private Object medianOfThree(int a, int b, int c) {
+		Object ka = keys.get(a);
+		Object kb = keys.get(b);
+		Object kc = keys.get(c);
+		if (comparator.compare(ka, kb) < 0) {
+			if (comparator.compare(kb, kc) < 0) {
+				return kb;
+			}
+			if (comparator.compare(ka, kc) < 0) {
+				return kc;
+			}
+			return ka;
+		}
+		if (comparator.compare(ka, kc) < 0) {
+			return ka;
+		}
+		if (comparator.compare(kb, kc) < 0) {
+			return kc;
+		}
+		return kb;
+	}
+
+	/**
+	 * Sorts [from, to) by insertion, if small, or else by {@link KeySort}.
+	 */
+	private void sort(int from, int to) {
+		if (to - from <= INSERTION_SORT_CUTOFF) {
+			for (int i = from + 1; i < to; i++) {
+				int j = i;
+				while (j > from && comparator.compare(keys.get(j - 1), keys.get(j)) > 0) {
+					swap(j - 1, j);
+					j--;
+				}
+			}
+			return;
+		}
+		Object[] sortedKeys = keys.subList(from, to).toArray();
+		Object[] sortedElements = elements.subList(from, to).toArray();
+		KeySort.sort(sortedKeys, sortedElements, comparator);
+		for (int i = from; i < to; i++) {
+			keys.set(i, sortedKeys[i - from]);
+			if (elements != keys) {
+				elements.set(i, sortedElements[i - from]);
+			}
+		}
+	}
+
+	private void swap(int i, int j) {
+		keys.set(j, keys.set(i, keys.get(j)));
+		if (elements != keys) {
+			elements.set(j, elements.set(i, elements.get(j)));
+		}
+	}
+}
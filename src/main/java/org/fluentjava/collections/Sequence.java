@@ -1,18 +1,23 @@
 package org.fluentjava.collections;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.List;
 import java.util.RandomAccess;
 
 /**
- * Standard implementation of {@link FluentList}.
+ * Standard implementation of {@link FluentList}. Backed by an {@link ArrayList} that
+ * counts modifications, including those made through iterators and sub lists.
  * 
  * @param <E>
  * Type of elements
  */
 public class Sequence<E> extends ForwardingFluentList<E>
 		implements
-			RandomAccess {
-	private static final long serialVersionUID = 2L;
+			RandomAccess, TracksModifications {
+	private static final long serialVersionUID = 3L;
 
 	/*
 	 * Constructors
@@ -21,7 +26,7 @@ public class Sequence<E> extends ForwardingFluentList<E>
 	 * Creates an empty Sequence.
 	 */
 	public Sequence() {
-		super(new ArrayList<E>());
+		super(new TrackedList<E>());
 	}
 
 	/**
@@ -44,4 +49,145 @@ public class Sequence<E> extends ForwardingFluentList<E>
 		insert(iterable);
 	}
 
+	/*
+	 * Public Methods
+	 */
+	@Override
+	public long modificationStamp() {
+		return ((TrackedList<E>) delegateList).modificationStamp();
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * ArrayList that adds replacements of elements, which are not structural, to its
+	 * count of structural modifications. Its sub lists are {@link TrackedSubList}s, since
+	 * those of ArrayList replace elements without calling {@link #set(int, Object)}.
+	 */
+	private static final class TrackedList<E> extends ArrayList<E> {
+		private static final long serialVersionUID = 1L;
+		private long replacements;
+
+		@Override
+		public E set(int index, E element) {
+			replacements++;
+			return super.set(index, element);
+		}
+
+		@Override
+		public List<E> subList(int fromIndex, int toIndex) {
+			if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+				throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex
+						+ ", Size: " + size());
+			}
+			return new TrackedSubList<E>(this, fromIndex, toIndex);
+		}
+
+		long modificationStamp() {
+			return modCount + replacements;
+		}
+
+		void removeElements(int fromIndex, int toIndex) {
+			removeRange(fromIndex, toIndex);
+		}
+
+		int structuralModifications() {
+			return modCount;
+		}
+	}
+
+	/**
+	 * View of a range of a {@link TrackedList}, modifying it only through its methods, so
+	 * that every modification is counted. Fails if the list is structurally modified
+	 * otherwise.
+	 */
+	private static final class TrackedSubList<E> extends AbstractList<E>
+			implements
+				RandomAccess {
+		private final TrackedList<E> parent;
+		private final int offset;
+		private int size;
+		private int expectedModifications;
+
+		TrackedSubList(TrackedList<E> parent, int fromIndex, int toIndex) {
+			this.parent = parent;
+			this.offset = fromIndex;
+			this.size = toIndex - fromIndex;
+			this.expectedModifications = parent.structuralModifications();
+		}
+
+		@Override
+		public E get(int index) {
+			checkIndex(index, size - 1);
+			return parent.get(offset + index);
+		}
+
+		@Override
+		public int size() {
+			checkModification();
+			return size;
+		}
+
+		@Override
+		public E set(int index, E element) {
+			checkIndex(index, size - 1);
+			return parent.set(offset + index, element);
+		}
+
+		@Override
+		public void add(int index, E element) {
+			checkIndex(index, size);
+			parent.add(offset + index, element);
+			expectedModifications = parent.structuralModifications();
+			size++;
+			modCount++;
+		}
+
+		@Override
+		public E remove(int index) {
+			checkIndex(index, size - 1);
+			E ret = parent.remove(offset + index);
+			expectedModifications = parent.structuralModifications();
+			size--;
+			modCount++;
+			return ret;
+		}
+
+		@Override
+		public boolean addAll(int index, Collection<? extends E> c) {
+			checkIndex(index, size);
+			int added = c.size();
+			if (added == 0) {
+				return false;
+			}
+			parent.addAll(offset + index, c);
+			expectedModifications = parent.structuralModifications();
+			size += added;
+			modCount++;
+			return true;
+		}
+
+		@Override
+		protected void removeRange(int fromIndex, int toIndex) {
+			checkModification();
+			parent.removeElements(offset + fromIndex, offset + toIndex);
+			expectedModifications = parent.structuralModifications();
+			size -= toIndex - fromIndex;
+			modCount++;
+		}
+
+		private void checkIndex(int index, int max) {
+			checkModification();
+			if (index < 0 || index > max) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+
+		private void checkModification() {
+			if (parent.structuralModifications() != expectedModifications) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
 }
@@ -0,0 +1,206 @@
+package org.fluentjava.collections;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.fluentjava.closures.ClosureCoercion;
+
+/**
+ * {@link FluentMap} that keeps its entries sorted by key, by the natural order of the keys
+ * or by a comparator. Backed by a {@link TreeMap}, so it iterates in key order, and puts,
+ * gets and removes in O(log n), including the nearest keys ({@link #floorKey(Object)},
+ * {@link #ceilingKey(Object)}, {@link #lowerKey(Object)} and {@link #higherKey(Object)}).
+ * Ranges ({@link #range(Object, Object)}, {@link #headMap(Object)},
+ * {@link #tailMap(Object)}) are views of this map. {@link #keys()} is a
+ * {@link SortedFluentSet}, so set operations between the keys of two maps merge them.
+ *
+ * @param <K>
+ * Type of keys.
+ * @param <V>
+ * Type of Values
+ */
+public class SortedFluentMap<K, V> extends ForwardingFluentMap<K, V>
+		implements
+			SortedMap<K, V> {
+	private static final long serialVersionUID = 1L;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * Creates an empty SortedFluentMap, sorted by the natural order of its keys.
+	 */
+	public SortedFluentMap() {
+		this(new TreeMap<K, V>());
+	}
+
+	/**
+	 * Creates a SortedFluentMap with the entries of the map, sorted by the natural order of
+	 * its keys. Takes linear time if the map is sorted by that order.
+	 *
+	 * @param map
+	 */
+	public SortedFluentMap(Map<? extends K, ? extends V> map) {
+		this();
+		putAll(map);
+	}
+
+	private SortedFluentMap(SortedMap<K, V> delegateMap) {
+		super(delegateMap);
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Creates an empty SortedFluentMap, sorted using closure as a comparator of the keys.
+	 *
+	 * @param <K>
+	 * @param <V>
+	 * @param closure
+	 * @return
+	 */
+	public static <K, V> SortedFluentMap<K, V> withComparator(Object closure) {
+		Comparator<K> comparator = ClosureCoercion.toClosure(closure).as(Comparator.class);
+		return new SortedFluentMap<K, V>(new TreeMap<K, V>(comparator));
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public Comparator<? super K> comparator() {
+		return sortedMap().comparator();
+	}
+
+	public K firstKey() {
+		return sortedMap().firstKey();
+	}
+
+	public K lastKey() {
+		return sortedMap().lastKey();
+	}
+
+	/**
+	 * View of the entries with keys from fromKey, inclusive, to toKey, exclusive.
+	 */
+	public SortedFluentMap<K, V> subMap(K fromKey, K toKey) {
+		return new SortedFluentMap<K, V>(sortedMap().subMap(fromKey, toKey));
+	}
+
+	/**
+	 * View of the entries with keys less than toKey.
+	 */
+	public SortedFluentMap<K, V> headMap(K toKey) {
+		return new SortedFluentMap<K, V>(sortedMap().headMap(toKey));
+	}
+
+	/**
+	 * View of the entries with keys greater than or equal to fromKey.
+	 */
+	public SortedFluentMap<K, V> tailMap(K fromKey) {
+		return new SortedFluentMap<K, V>(sortedMap().tailMap(fromKey));
+	}
+
+	/**
+	 * Alias to {@link #subMap(Object, Object)}.
+	 *
+	 * @param fromKey
+	 * @param toKey
+	 * @return
+	 */
+	public SortedFluentMap<K, V> range(K fromKey, K toKey) {
+		return subMap(fromKey, toKey);
+	}
+
+	/**
+	 * Returns the least key greater than or equal to key, or null if there is none.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public K ceilingKey(K key) {
+		SortedMap<K, V> tail = sortedMap().tailMap(key);
+		if (tail.isEmpty()) {
+			return null;
+		}
+		return tail.firstKey();
+	}
+
+	/**
+	 * Returns the least key strictly greater than key, or null if there is none.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public K higherKey(K key) {
+		Iterator<K> tail = sortedMap().tailMap(key).keySet().iterator();
+		while (tail.hasNext()) {
+			K next = tail.next();
+			if (compare(next, key) > 0) {
+				return next;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the greatest key less than or equal to key, or null if there is none.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public K floorKey(K key) {
+		K ceiling = ceilingKey(key);
+		if (ceiling != null && compare(ceiling, key) == 0) {
+			return ceiling;
+		}
+		return lowerKey(key);
+	}
+
+	/**
+	 * Returns the greatest key strictly less than key, or null if there is none.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public K lowerKey(K key) {
+		SortedMap<K, V> head = sortedMap().headMap(key);
+		if (head.isEmpty()) {
+			return null;
+		}
+		return head.lastKey();
+	}
+
+	/**
+	 * A copy of the keys, sorted like this map, built in linear time.
+	 */
+	@Override
+	public SortedFluentSet<K> keys() {
+		return SortedFluentSet.fromSorted(keySet(), comparator());
+	}
+
+	@Override
+	public Object clone() {
+		SortedFluentMap<K, V> ret = new SortedFluentMap<K, V>(new TreeMap<K, V>(comparator()));
+		ret.putAll(sortedMap());
+		return ret;
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private SortedMap<K, V> sortedMap() {
+		return (SortedMap<K, V>) delegateMap;
+	}
+
+	private int compare(K k1, K k2) {
+		Comparator<? super K> comparator = comparator();
+		if (comparator == null) {
+			return new ComparableComparator<K>().compare(k1, k2);
+		}
+		return comparator.compare(k1, k2);
+	}
+}
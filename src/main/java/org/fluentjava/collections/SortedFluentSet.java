@@ -0,0 +1,463 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.fluentjava.closures.ClosureCoercion;
+
+/**
+ * {@link FluentSet} that keeps its elements sorted, by their natural order or by a
+ * comparator. Backed by a {@link TreeSet}, so it iterates in order, and adds, removes and
+ * finds elements in O(log n), including the nearest ones ({@link #floor(Object)},
+ * {@link #ceiling(Object)}, {@link #lower(Object)} and {@link #higher(Object)}). Ranges
+ * ({@link #range(Object, Object)}, {@link #headSet(Object)}, {@link #tailSet(Object)})
+ * are views of this set.
+ *
+ * When the other operand is a {@link SortedSet} with the same order, intersect, union,
+ * difference and symmetricDifference merge both sets in a single pass, O(n + m), instead
+ * of looking up every element.
+ *
+ * @param <E>
+ * Type of elements
+ */
+public class SortedFluentSet<E> extends ForwardingFluentSet<E> implements SortedSet<E> {
+	private static final long serialVersionUID = 1L;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * Creates an empty SortedFluentSet, sorted by the natural order of its elements.
+	 */
+	public SortedFluentSet() {
+		this(new TreeSet<E>());
+	}
+
+	/**
+	 * Creates a SortedFluentSet with elements args, sorted by their natural order.
+	 *
+	 * @param args
+	 */
+	public SortedFluentSet(E... args) {
+		this();
+		insert(args);
+	}
+
+	/**
+	 * Creates a SortedFluentSet with the iterable elements, sorted by their natural order.
+	 *
+	 * @param iterable
+	 */
+	public SortedFluentSet(Iterable<? extends E> iterable) {
+		this();
+		insert(iterable);
+	}
+
+	private SortedFluentSet(SortedSet<E> delegateSet) {
+		super(delegateSet);
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Creates an empty SortedFluentSet, sorted using closure as a comparator. Elements that
+	 * the comparator finds equal are the same element for the set.
+	 *
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> SortedFluentSet<E> withComparator(Object closure) {
+		Comparator<E> comparator = ClosureCoercion.toClosure(closure).as(Comparator.class);
+		return new SortedFluentSet<E>(new TreeSet<E>(comparator));
+	}
+
+	/**
+	 * Creates a SortedFluentSet from distinct elements already sorted by the comparator,
+	 * in linear time.
+	 *
+	 * @param <E>
+	 * @param sorted
+	 * @param comparator
+	 * If null, the natural order.
+	 * @return
+	 */
+	static <E> SortedFluentSet<E> fromSorted(Iterable<E> sorted,
+			Comparator<? super E> comparator) {
+		List<E> elements = new ArrayList<E>();
+		for (E e : sorted) {
+			elements.add(e);
+		}
+		TreeSet<E> ret = new TreeSet<E>(comparator);
+		ret.addAll(new SortedList<E>(elements, comparator));
+		return new SortedFluentSet<E>(ret);
+	}
+
+	/*
+	 * Public Methods
+	 */
+	public Comparator<? super E> comparator() {
+		return sortedSet().comparator();
+	}
+
+	public E first() {
+		return sortedSet().first();
+	}
+
+	public E last() {
+		return sortedSet().last();
+	}
+
+	/**
+	 * View of the elements from fromElement, inclusive, to toElement, exclusive.
+	 */
+	public SortedFluentSet<E> subSet(E fromElement, E toElement) {
+		return new SortedFluentSet<E>(sortedSet().subSet(fromElement, toElement));
+	}
+
+	/**
+	 * View of the elements less than toElement.
+	 */
+	public SortedFluentSet<E> headSet(E toElement) {
+		return new SortedFluentSet<E>(sortedSet().headSet(toElement));
+	}
+
+	/**
+	 * View of the elements greater than or equal to fromElement.
+	 */
+	public SortedFluentSet<E> tailSet(E fromElement) {
+		return new SortedFluentSet<E>(sortedSet().tailSet(fromElement));
+	}
+
+	/**
+	 * Alias to {@link #subSet(Object, Object)}.
+	 *
+	 * @param fromElement
+	 * @param toElement
+	 * @return
+	 */
+	public SortedFluentSet<E> range(E fromElement, E toElement) {
+		return subSet(fromElement, toElement);
+	}
+
+	/**
+	 * Returns the least element greater than or equal to e, or null if there is none.
+	 *
+	 * @param e
+	 * @return
+	 */
+	public E ceiling(E e) {
+		SortedSet<E> tail = sortedSet().tailSet(e);
+		if (tail.isEmpty()) {
+			return null;
+		}
+		return tail.first();
+	}
+
+	/**
+	 * Returns the least element strictly greater than e, or null if there is none.
+	 *
+	 * @param e
+	 * @return
+	 */
+	public E higher(E e) {
+		Iterator<E> tail = sortedSet().tailSet(e).iterator();
+		while (tail.hasNext()) {
+			E next = tail.next();
+			if (compare(next, e) > 0) {
+				return next;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the greatest element less than or equal to e, or null if there is none.
+	 *
+	 * @param e
+	 * @return
+	 */
+	public E floor(E e) {
+		E ceiling = ceiling(e);
+		if (ceiling != null && compare(ceiling, e) == 0) {
+			return ceiling;
+		}
+		return lower(e);
+	}
+
+	/**
+	 * Returns the greatest element strictly less than e, or null if there is none.
+	 *
+	 * @param e
+	 * @return
+	 */
+	public E lower(E e) {
+		SortedSet<E> head = sortedSet().headSet(e);
+		if (head.isEmpty()) {
+			return null;
+		}
+		return head.last();
+	}
+
+	@Override
+	public SortedFluentSet<E> intersect(Iterable<? extends E> iterable) {
+		if (hasSameOrder(iterable)) {
+			return merge(iterable, false, true, false);
+		}
+		SortedFluentSet<E> ret = copy();
+		ret.retainAll(inThisOrder(iterable));
+		return ret;
+	}
+
+	@Override
+	public SortedFluentSet<E> union(Iterable<? extends E> iterable) {
+		if (hasSameOrder(iterable)) {
+			return merge(iterable, true, true, true);
+		}
+		SortedFluentSet<E> ret = copy();
+		ret.insert(iterable);
+		return ret;
+	}
+
+	@Override
+	public SortedFluentSet<E> difference(Iterable<? extends E> iterable) {
+		if (hasSameOrder(iterable)) {
+			return merge(iterable, true, false, false);
+		}
+		SortedFluentSet<E> ret = copy();
+		ret.removeAll(inThisOrder(iterable));
+		return ret;
+	}
+
+	@Override
+	public SortedFluentSet<E> symmetricDifference(Iterable<? extends E> iterable) {
+		if (hasSameOrder(iterable)) {
+			return merge(iterable, true, false, true);
+		}
+		SortedFluentSet<E> other = copy().insert(iterable).difference(this);
+		SortedFluentSet<E> ret = difference(iterable);
+		ret.addAll(other);
+		return ret;
+	}
+
+	@Override
+	public SortedFluentSet<E> insert(Iterable<? extends E> iterable) {
+		super.insert(iterable);
+		return this;
+	}
+
+	/**
+	 * Already sorted, if sorted by natural order.
+	 */
+	@Override
+	public FluentList<E> sort() {
+		if (comparator() != null) {
+			return super.sort();
+		}
+		return toList();
+	}
+
+	@Override
+	public Object clone() {
+		return copy();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private SortedSet<E> sortedSet() {
+		return (SortedSet<E>) delegateSet;
+	}
+
+	/**
+	 * A copy, built in linear time, since it is already sorted.
+	 */
+	private SortedFluentSet<E> copy() {
+		return new SortedFluentSet<E>(new TreeSet<E>(sortedSet()));
+	}
+
+	private int compare(E e1, E e2) {
+		Comparator<? super E> comparator = comparator();
+		if (comparator == null) {
+			return new ComparableComparator<E>().compare(e1, e2);
+		}
+		return comparator.compare(e1, e2);
+	}
+
+	private boolean hasSameOrder(Iterable<?> iterable) {
+		if (!(iterable instanceof SortedSet<?>)) {
+			return false;
+		}
+		Comparator<?> other = ((SortedSet<?>) iterable).comparator();
+		Comparator<?> own = comparator();
+		if (own == null || own == other) {
+			return own == other;
+		}
+		return own.equals(other);
+	}
+
+	/**
+	 * The elements of the iterable in a set with the order of this one, so that finding
+	 * them agrees with this set, which may not agree with equals.
+	 */
+	private SortedSet<E> inThisOrder(Iterable<? extends E> iterable) {
+		TreeSet<E> ret = new TreeSet<E>(comparator());
+		for (E e : iterable) {
+			ret.add(e);
+		}
+		return ret;
+	}
+
+	/**
+	 * Walks both sets in order, keeping the elements only in this one, in both, or only
+	 * in the other one, as asked. Equal elements are taken from this set.
+	 */
+	private SortedFluentSet<E> merge(Iterable<? extends E> other, boolean onlyThis,
+			boolean both, boolean onlyOther) {
+		List<E> merged = new ArrayList<E>();
+		Iterator<E> left = iterator();
+		Iterator<? extends E> right = other.iterator();
+		E l = null;
+		E r = null;
+		boolean hasLeft = left.hasNext();
+		boolean hasRight = right.hasNext();
+		if (hasLeft) {
+			l = left.next();
+		}
+		if (hasRight) {
+			r = right.next();
+		}
+		while (hasLeft || hasRight) {
+			int comparison = compareSides(hasLeft, l, hasRight, r);
+			if (comparison <= 0) {
+				addIf(comparison < 0 && onlyThis || comparison == 0 && both, merged, l);
+				hasLeft = left.hasNext();
+				if (hasLeft) {
+					l = left.next();
+				}
+			}
+			if (comparison >= 0) {
+				addIf(comparison > 0 && onlyOther, merged, r);
+				hasRight = right.hasNext();
+				if (hasRight) {
+					r = right.next();
+				}
+			}
+		}
+		return fromSorted(merged, comparator());
+	}
+
+	/**
+	 * Compares the current elements of both sides of a merge. An exhausted side goes after
+	 * the other.
+	 */
+	private int compareSides(boolean hasLeft, E l, boolean hasRight, E r) {
+		if (!hasLeft) {
+			return 1;
+		}
+		if (!hasRight) {
+			return -1;
+		}
+		return compare(l, r);
+	}
+
+	private static <T> void addIf(boolean condition, List<T> list, T element) {
+		if (condition) {
+			list.add(element);
+		}
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Sorted list of distinct elements seen as a SortedSet, so that
+	 * {@link TreeSet#addAll(java.util.Collection)} builds its tree in linear time. Lookups
+	 * and ranges binary search the list; ranges are views of it.
+	 */
+	private static final class SortedList<E> extends AbstractSet<E> implements SortedSet<E> {
+		private final List<E> elements;
+		private final Comparator<? super E> comparator;
+
+		SortedList(List<E> elements, Comparator<? super E> comparator) {
+			this.elements = elements;
+			this.comparator = comparator;
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return elements.iterator();
+		}
+
+		@Override
+		public int size() {
+			return elements.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			E e = as(o);
+			return Collections.binarySearch(elements, e, comparator) >= 0;
+		}
+
+		public Comparator<? super E> comparator() {
+			return comparator;
+		}
+
+		public E first() {
+			if (elements.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			return elements.get(0);
+		}
+
+		public E last() {
+			if (elements.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			return elements.get(elements.size() - 1);
+		}
+
+		public SortedSet<E> subSet(E fromElement, E toElement) {
+			int from = lowerBound(fromElement);
+			int to = lowerBound(toElement);
+			if (from > to) {
+				throw new IllegalArgumentException("fromElement > toElement");
+			}
+			return range(from, to);
+		}
+
+		public SortedSet<E> headSet(E toElement) {
+			return range(0, lowerBound(toElement));
+		}
+
+		public SortedSet<E> tailSet(E fromElement) {
+			return range(lowerBound(fromElement), elements.size());
+		}
+
+		/**
+		 * Index of the first element not less than e.
+		 */
+		private int lowerBound(E e) {
+			int index = Collections.binarySearch(elements, e, comparator);
+			if (index < 0) {
+				return -index - 1;
+			}
+			return index;
+		}
+
+		private SortedSet<E> range(int from, int to) {
+			return new SortedList<E>(elements.subList(from, to), comparator);
+		}
+	}
+}
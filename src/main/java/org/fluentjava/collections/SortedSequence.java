@@ -0,0 +1,584 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.closures.ClosureCoercion;
+
+/**
+ * {@link FluentList} that keeps its elements sorted, by their natural order, by a
+ * comparator, or by the natural order of a key of each element. Elements are inserted in
+ * their place by binary search, after the equal ones, so the order of equal elements is
+ * the order they were added in. Lookups, such as {@link #contains(Object)},
+ * {@link #indexOf(Object)} and {@link #detectByKey(Object)}, also binary search, as do
+ * the views {@link #range(Object, Object)}, {@link #headList(Object)} and
+ * {@link #tailList(Object)}. {@link #min()}, {@link #max()} and the sorts take fast paths
+ * when asked for the order the list already has.
+ *
+ * Elements cannot be added or replaced at an index, since that could break the order, so
+ * {@link #add(int, Object)}, {@link #addAll(int, Collection)}, {@link #set(int, Object)}
+ * and the list iterators do not modify the list. Views are read only.
+ *
+ * @param <E>
+ * Type of elements
+ */
+public class SortedSequence<E> extends ForwardingFluentList<E> implements RandomAccess {
+	private static final long serialVersionUID = 1L;
+	/*
+	 * Constants
+	 */
+	/**
+	 * Collections of at most size() / INSERT_CUTOFF elements are added one by one,
+	 * bigger ones are sorted and merged.
+	 */
+	private static final int INSERT_CUTOFF = 16;
+
+	/*
+	 * Variables
+	 */
+	private final Object keyClosure;
+	private final Object comparatorClosure;
+	private final Closure keyGenerator;
+	private final Comparator<Object> comparator;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * Creates an empty SortedSequence, sorted by the natural order of its elements.
+	 */
+	public SortedSequence() {
+		this(new ArrayList<E>(), null, null);
+	}
+
+	/**
+	 * Creates a SortedSequence with elements args, sorted by their natural order.
+	 *
+	 * @param args
+	 */
+	public SortedSequence(E... args) {
+		this();
+		insert(args);
+	}
+
+	/**
+	 * Creates a SortedSequence with the iterable elements, sorted by their natural order.
+	 *
+	 * @param iterable
+	 */
+	public SortedSequence(Iterable<? extends E> iterable) {
+		this();
+		insert(iterable);
+	}
+
+	private SortedSequence(List<E> delegateList, Object keyClosure, Object comparatorClosure) {
+		super(delegateList);
+		this.keyClosure = keyClosure;
+		this.comparatorClosure = comparatorClosure;
+		if (keyClosure == null) {
+			this.keyGenerator = null;
+		}
+		else {
+			this.keyGenerator = ClosureCoercion.toClosure(keyClosure);
+		}
+		if (comparatorClosure == null) {
+			this.comparator = new ComparableComparator<Object>();
+		}
+		else {
+			this.comparator = ClosureCoercion.toClosure(comparatorClosure).as(Comparator.class);
+		}
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Creates an empty SortedSequence, sorted using closure as a comparator.
+	 *
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> SortedSequence<E> withComparator(Object closure) {
+		return new SortedSequence<E>(new ArrayList<E>(), null, closure);
+	}
+
+	/**
+	 * Creates an empty SortedSequence, sorted by the natural order of closure.call(e), for
+	 * every element e.
+	 *
+	 * @param <E>
+	 * @param closure
+	 * @return
+	 */
+	public static <E> SortedSequence<E> withKey(Object closure) {
+		return new SortedSequence<E>(new ArrayList<E>(), closure, null);
+	}
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Inserts the element after the elements that are not greater. Always returns true.
+	 */
+	@Override
+	public boolean add(E e) {
+		delegateList.add(upperBound(keyOf(e)), e);
+		return true;
+	}
+
+	/**
+	 * Small collections are inserted one by one; bigger ones are sorted and merged with
+	 * the elements in the list, in linear time.
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		if (c.size() <= size() / INSERT_CUTOFF) {
+			for (E e : c) {
+				add(e);
+			}
+			return !c.isEmpty();
+		}
+		Object[] added = c.toArray();
+		Object[] addedKeys = keysOf(added);
+		KeySort.sort(addedKeys, added, comparator);
+		Object[] merged = merge(delegateList.toArray(), added, addedKeys);
+		delegateList.clear();
+		List<E> elements = as(asList(merged));
+		delegateList.addAll(elements);
+		return added.length > 0;
+	}
+
+	@Override
+	public FluentList<E> insert(Iterable<? extends E> iterable) {
+		if (iterable instanceof Collection<?>) {
+			Collection<? extends E> c = as(iterable);
+			addAll(c);
+		}
+		else {
+			addAll(new Sequence<E>(iterable));
+		}
+		return this;
+	}
+
+	/**
+	 * Not supported: elements go where their order says.
+	 */
+	@Override
+	public void add(int index, E element) {
+		throw new UnsupportedOperationException("SortedSequences cannot insert at an index.");
+	}
+
+	/**
+	 * Not supported: elements go where their order says.
+	 */
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		throw new UnsupportedOperationException("SortedSequences cannot insert at an index.");
+	}
+
+	/**
+	 * Not supported: elements go where their order says.
+	 */
+	@Override
+	public E set(int index, E element) {
+		throw new UnsupportedOperationException("SortedSequences cannot replace elements.");
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	/**
+	 * Binary searches the first element with the same key as o, and then looks for o
+	 * among the elements with that key.
+	 */
+	@Override
+	public int indexOf(Object o) {
+		try {
+			Object key = keyOf(o);
+			for (int i = lowerBound(key); i < size(); i++) {
+				E e = get(i);
+				if (comparator.compare(keyOf(e), key) != 0) {
+					break;
+				}
+				if (equal(e, o)) {
+					return i;
+				}
+			}
+		} catch (ClassCastException e) {
+			// o cannot be in the list
+		} catch (NullPointerException e) {
+			// o is null, and the order does not allow nulls
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		try {
+			Object key = keyOf(o);
+			for (int i = upperBound(key) - 1; i >= 0; i--) {
+				E e = get(i);
+				if (comparator.compare(keyOf(e), key) != 0) {
+					break;
+				}
+				if (equal(e, o)) {
+					return i;
+				}
+			}
+		} catch (ClassCastException e) {
+			// o cannot be in the list
+		} catch (NullPointerException e) {
+			// o is null, and the order does not allow nulls
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	/**
+	 * Returns the first element whose key (the element itself, unless the list is sorted
+	 * by a key closure) is equal to the given one, according to the order of the list.
+	 * Returns null if there is none. Binary searches.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public E detectByKey(Object key) {
+		int index = lowerBound(key);
+		if (index < size() && comparator.compare(keyOf(get(index)), key) == 0) {
+			return get(index);
+		}
+		return null;
+	}
+
+	/**
+	 * Read only view of the elements whose key is at least fromKey and less than toKey.
+	 *
+	 * @param fromKey
+	 * @param toKey
+	 * @return
+	 */
+	public SortedSequence<E> range(Object fromKey, Object toKey) {
+		int from = lowerBound(fromKey);
+		return subList(from, Math.max(from, lowerBound(toKey)));
+	}
+
+	/**
+	 * Read only view of the elements whose key is less than toKey.
+	 *
+	 * @param toKey
+	 * @return
+	 */
+	public SortedSequence<E> headList(Object toKey) {
+		return subList(0, lowerBound(toKey));
+	}
+
+	/**
+	 * Read only view of the elements whose key is at least fromKey.
+	 *
+	 * @param fromKey
+	 * @return
+	 */
+	public SortedSequence<E> tailList(Object fromKey) {
+		return subList(lowerBound(fromKey), size());
+	}
+
+	/**
+	 * Read only view.
+	 */
+	@Override
+	public SortedSequence<E> subList(int fromIndex, int toIndex) {
+		List<E> view = Collections.unmodifiableList(delegateList.subList(fromIndex, toIndex));
+		return new SortedSequence<E>(view, keyClosure, comparatorClosure);
+	}
+
+	@Override
+	public SortedSequence<E> subListTo(int toIndex) {
+		return subList(0, toIndex);
+	}
+
+	@Override
+	public SortedSequence<E> subList(int fromIndex) {
+		return subList(fromIndex, size());
+	}
+
+	/**
+	 * Read only, since setting or adding at its position could break the order.
+	 */
+	@Override
+	public ListIterator<E> listIterator() {
+		return Collections.unmodifiableList(delegateList).listIterator();
+	}
+
+	/**
+	 * Read only, since setting or adding at its position could break the order.
+	 */
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		return Collections.unmodifiableList(delegateList).listIterator(index);
+	}
+
+	@Override
+	public E min() throws EnumeratingException {
+		if (!isNaturalOrder()) {
+			return super.min();
+		}
+		return first();
+	}
+
+	@Override
+	public E max() throws EnumeratingException {
+		if (!isNaturalOrder()) {
+			return super.max();
+		}
+		return firstOfLast();
+	}
+
+	@Override
+	public E min(Object closure) throws EnumeratingException {
+		if (!isComparator(closure)) {
+			return super.min(closure);
+		}
+		return first();
+	}
+
+	@Override
+	public E max(Object closure) throws EnumeratingException {
+		if (!isComparator(closure)) {
+			return super.max(closure);
+		}
+		return firstOfLast();
+	}
+
+	@Override
+	public E minBy(Object closure) throws EnumeratingException {
+		if (!isKey(closure)) {
+			return super.minBy(closure);
+		}
+		return first();
+	}
+
+	@Override
+	public E maxBy(Object closure) throws EnumeratingException {
+		if (!isKey(closure)) {
+			return super.maxBy(closure);
+		}
+		return firstOfLast();
+	}
+
+	@Override
+	public FluentList<E> sort() {
+		if (!isNaturalOrder()) {
+			return super.sort();
+		}
+		return toList();
+	}
+
+	@Override
+	public FluentList<E> sort(Object closure) throws EnumeratingException {
+		if (!isComparator(closure)) {
+			return super.sort(closure);
+		}
+		return toList();
+	}
+
+	@Override
+	public FluentList<E> sortBy(Object closure) throws EnumeratingException {
+		if (!isKey(closure)) {
+			return super.sortBy(closure);
+		}
+		return toList();
+	}
+
+	@Override
+	public E nth(int k) throws EnumeratingException {
+		if (!isNaturalOrder()) {
+			return super.nth(k);
+		}
+		return get(k);
+	}
+
+	@Override
+	public E nthBy(int k, Object closure) throws EnumeratingException {
+		if (!isKey(closure)) {
+			return super.nthBy(k, closure);
+		}
+		return get(k);
+	}
+
+	@Override
+	public FluentList<E> percentiles(double... percentiles) throws EnumeratingException {
+		if (!isNaturalOrder()) {
+			return super.percentiles(percentiles);
+		}
+		FluentList<E> ret = new Sequence<E>();
+		for (int position : Selection.percentilePositions(size(), percentiles)) {
+			if (isEmpty()) {
+				ret.add(null);
+			}
+			else {
+				ret.add(get(position));
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Same as {@link #nth(int)}: this list is never reordered.
+	 */
+	@Override
+	public E nthInPlace(int k) {
+		return nth(k);
+	}
+
+	/**
+	 * Same as {@link #percentiles(double...)}: this list is never reordered.
+	 */
+	@Override
+	public FluentList<E> percentilesInPlace(double... percentiles) {
+		return percentiles(percentiles);
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private boolean isNaturalOrder() {
+		return keyClosure == null && comparatorClosure == null;
+	}
+
+	private boolean isComparator(Object closure) {
+		return keyClosure == null && closure != null && closure.equals(comparatorClosure);
+	}
+
+	private boolean isKey(Object closure) {
+		return comparatorClosure == null && closure != null && closure.equals(keyClosure);
+	}
+
+	private E first() {
+		if (isEmpty()) {
+			return null;
+		}
+		return get(0);
+	}
+
+	/**
+	 * The first of the greatest elements, as {@link #max()} returns the first one found.
+	 */
+	private E firstOfLast() {
+		if (isEmpty()) {
+			return null;
+		}
+		return get(lowerBound(keyOf(get(size() - 1))));
+	}
+
+	private Object keyOf(Object element) {
+		if (keyGenerator == null) {
+			return element;
+		}
+		try {
+			return keyGenerator.call(element);
+		} catch (ClassCastException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new EnumeratingException(e);
+		}
+	}
+
+	private Object[] keysOf(Object[] elements) {
+		Object[] keys = new Object[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			keys[i] = keyOf(elements[i]);
+		}
+		return keys;
+	}
+
+	/**
+	 * Index of the first element whose key is not less than key.
+	 */
+	private int lowerBound(Object key) {
+		int low = 0;
+		int high = size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(keyOf(get(middle)), key) < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Index of the first element whose key is greater than key.
+	 */
+	private int upperBound(Object key) {
+		int low = 0;
+		int high = size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compare(keyOf(get(middle)), key) <= 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Merges the sorted elements of the list with the sorted added ones, taking the
+	 * elements of the list first on ties.
+	 */
+	private Object[] merge(Object[] elements, Object[] added, Object[] addedKeys) {
+		Object[] ret = new Object[elements.length + added.length];
+		int left = 0;
+		int right = 0;
+		Object leftKey = null;
+		if (elements.length > 0) {
+			leftKey = keyOf(elements[0]);
+		}
+		for (int i = 0; i < ret.length; i++) {
+			if (right >= added.length || left < elements.length
+					&& comparator.compare(leftKey, addedKeys[right]) <= 0) {
+				ret[i] = elements[left++];
+				if (left < elements.length) {
+					leftKey = keyOf(elements[left]);
+				}
+			}
+			else {
+				ret[i] = added[right++];
+			}
+		}
+		return ret;
+	}
+
+	private static boolean equal(Object o1, Object o2) {
+		if (o1 == null) {
+			return o2 == null;
+		}
+		return o1.equals(o2);
+	}
+}
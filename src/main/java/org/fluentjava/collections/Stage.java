@@ -0,0 +1,217 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.closures.ClosureOfAMethodName;
+import org.fluentjava.closures.Predicate;
+import org.fluentjava.closures.PriviligedClosureOfAMethodName;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Enumerable returned by the lazy methods of {@link AbstractEnumerable}. Besides
+ * iterating over the lazy operation, it remembers the iterables the operation reads from,
+ * so that a pipeline of lazy operations can be walked back to its sources, and which
+ * method made it, for {@link Enumerable#explain()}. Stages made from a profiled stage
+ * are profiled as well (see {@link Enumerable#profile()}).
+ *
+ * @param <E>
+ */
+class Stage<E> extends Enumerator<E> {
+	/*
+	 * Variables
+	 */
+	private final String[] names;
+	private final Object[] arguments;
+	private final Iterable<? extends E> operation;
+	private final Iterable<?>[] upstream;
+	private final StageProfile profile;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param name
+	 * The lazy method.
+	 * @param argument
+	 * Its closure or other argument, if any, as given to the method.
+	 * @param operation
+	 * The lazy operation.
+	 * @param upstream
+	 * The iterables it reads from.
+	 */
+	Stage(String name, Object argument, Iterable<? extends E> operation,
+			Iterable<?>... upstream) {
+		this(new String[] {name}, new Object[] {argument}, operation, upstream);
+	}
+
+	private Stage(String[] names, Object[] arguments, Iterable<? extends E> operation,
+			Iterable<?>... upstream) {
+		this(names, arguments, operation, profileFor(upstream), upstream);
+	}
+
+	private Stage(String[] names, Object[] arguments, Iterable<? extends E> operation,
+			StageProfile profile, Iterable<?>... upstream) {
+		super(operation);
+		this.names = names;
+		this.arguments = arguments;
+		this.operation = operation;
+		this.profile = profile;
+		this.upstream = upstream;
+	}
+
+	/*
+	 * Public Methods
+	 */
+	@Override
+	public ExtendedIterator<E> iterator() {
+		if (profile == null) {
+			return super.iterator();
+		}
+		return profile.profile(super.iterator());
+	}
+
+	/*
+	 * Other Methods
+	 */
+	/**
+	 * Consecutive filters are merged, so that {@link ConjunctiveFilter} can order all
+	 * their predicates.
+	 */
+	@Override
+	Enumerable<E> filter(String name, Object closure, Predicate predicate) {
+		if (operation instanceof ConjunctiveFilter<?>) {
+			ConjunctiveFilter<E> filter = as(operation);
+			String[] moreNames = append(names, name);
+			Object[] moreArguments = append(arguments, closure);
+			return new Stage<E>(moreNames, moreArguments, filter.and(predicate), upstream);
+		}
+		return super.filter(name, closure, predicate);
+	}
+
+	/**
+	 * A profiled pipeline must read every element through its stages, so no list is
+	 * exposed to skip them.
+	 */
+	@Override
+	protected List<E> asRandomAccessList() {
+		if (profile != null) {
+			return null;
+		}
+		return super.asRandomAccessList();
+	}
+
+	@Override
+	Iterable<?>[] upstream() {
+		return upstream;
+	}
+
+	@Override
+	String describe() {
+		StringBuilder ret = new StringBuilder();
+		for (int i = 0; i < names.length; i++) {
+			if (i > 0) {
+				ret.append(" & ");
+			}
+			ret.append(names[i]).append('(').append(describe(arguments[i])).append(')');
+		}
+		if (profile != null) {
+			describeProfile(ret);
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Elements in are only known if every stage it reads from is profiled.
+	 */
+	private void describeProfile(StringBuilder ret) {
+		List<StageProfile> profiles = new ArrayList<StageProfile>();
+		for (Iterable<?> each : upstream) {
+			if (each instanceof Stage<?> && ((Stage<?>) each).profile != null) {
+				profiles.add(((Stage<?>) each).profile);
+			}
+		}
+		ret.append(" [");
+		if (profiles.size() == upstream.length) {
+			long in = 0;
+			for (StageProfile each : profiles) {
+				in += each.elements();
+			}
+			ret.append("in: ").append(in).append(", ");
+		}
+		ret.append("out: ").append(profile.elements());
+		double millis = profile.ownNanos(profiles) / 1e6;
+		ret.append(String.format(Locale.US, ", time: %.3f ms", millis));
+		ret.append(", allocated: ").append(profile.ownAllocatedBytes(profiles));
+		ret.append(" bytes]");
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * The first stage of a profiled pipeline, which returns the elements of the source.
+	 *
+	 * @param <E>
+	 * @param source
+	 * @return
+	 */
+	static <E> Stage<E> profiled(Iterable<E> source) {
+		return new Stage<E>(new String[] {"profile"}, new Object[] {null}, source,
+				new StageProfile(), source);
+	}
+
+	private static StageProfile profileFor(Iterable<?>... upstream) {
+		for (Iterable<?> each : upstream) {
+			if (each instanceof Stage<?> && ((Stage<?>) each).profile != null) {
+				return new StageProfile();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Closures given as method names are marked as reflective.
+	 */
+	private static String describe(Object argument) {
+		if (argument == null) {
+			return "";
+		}
+		if (argument instanceof String) {
+			return "\"" + argument + "\" reflective";
+		}
+		if (argument instanceof ClosureOfAMethodName) {
+			return describe(((ClosureOfAMethodName) argument).getMethodName());
+		}
+		if (argument instanceof PriviligedClosureOfAMethodName) {
+			return describe(((PriviligedClosureOfAMethodName) argument).getMethodName());
+		}
+		if (argument instanceof Closure) {
+			return argument.getClass().getName();
+		}
+		if (argument instanceof Object[]) {
+			StringBuilder ret = new StringBuilder();
+			for (Object each : (Object[]) argument) {
+				if (ret.length() > 0) {
+					ret.append(", ");
+				}
+				ret.append(describe(each));
+			}
+			return ret.toString();
+		}
+		return String.valueOf(argument);
+	}
+
+	private static <T> T[] append(T[] array, T element) {
+		Class<?> type = array.getClass().getComponentType();
+		T[] ret = as(Array.newInstance(type, array.length + 1));
+		System.arraycopy(array, 0, ret, 0, array.length);
+		ret[array.length] = element;
+		return ret;
+	}
+}
@@ -0,0 +1,181 @@
+package org.fluentjava.collections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+
+import org.fluentjava.iterators.AbstractExtendedIterator;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Measures of a {@link Stage} of a profiled pipeline (see {@link Enumerable#profile()}):
+ * the elements it returned, and the time spent and bytes allocated in the hasNext and
+ * next calls of its iterators. Those calls include the ones of the stages it reads from,
+ * which are subtracted to tell what the stage itself costs, mostly its closures.
+ *
+ * Allocations are read from the com.sun.management extension of {@link ThreadMXBean},
+ * when the JVM has it, and are 0 otherwise. Reading it may allocate a few bytes until
+ * the JIT compiles it, so small counts are approximate. Measures are not synchronized,
+ * so a profiled pipeline should be iterated by one thread at a time.
+ */
+class StageProfile {
+	/*
+	 * Constants
+	 */
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final Method ALLOCATED_BYTES = allocatedBytesMethod();
+
+	/*
+	 * Variables
+	 */
+	private long elements;
+	private long nanos;
+	private long allocatedBytes;
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Wraps an iterator of the stage, so that its calls are measured.
+	 *
+	 * @param <E>
+	 * @param iterator
+	 * @return
+	 */
+	<E> ExtendedIterator<E> profile(Iterator<E> iterator) {
+		return new ProfilingIterator<E>(iterator);
+	}
+
+	long elements() {
+		return elements;
+	}
+
+	/**
+	 * Nanoseconds spent in the stage, but not in the stages it reads from.
+	 *
+	 * @param upstream
+	 * Profiles of the stages it reads from.
+	 * @return
+	 */
+	long ownNanos(Iterable<StageProfile> upstream) {
+		long ret = nanos;
+		for (StageProfile each : upstream) {
+			ret -= each.nanos;
+		}
+		return Math.max(0, ret);
+	}
+
+	/**
+	 * Bytes allocated in the stage, but not in the stages it reads from.
+	 *
+	 * @param upstream
+	 * Profiles of the stages it reads from.
+	 * @return
+	 */
+	long ownAllocatedBytes(Iterable<StageProfile> upstream) {
+		long ret = allocatedBytes;
+		for (StageProfile each : upstream) {
+			ret -= each.allocatedBytes;
+		}
+		return Math.max(0, ret);
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private void measure(long startNanos, long startBytes) {
+		nanos += System.nanoTime() - startNanos;
+		if (ALLOCATED_BYTES != null) {
+			allocatedBytes += threadAllocatedBytes() - startBytes;
+		}
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * Measures the calls to an iterator. Closing it closes the iterator, if it is
+	 * {@link Closeable}, so that profiling does not keep resources such as the temporary
+	 * files of {@link Enumerable#externalSort(ElementCodec, int)} from being released.
+	 */
+	private class ProfilingIterator<E> extends AbstractExtendedIterator<E>
+			implements
+				Closeable {
+		private final Iterator<E> iterator;
+
+		ProfilingIterator(Iterator<E> iterator) {
+			this.iterator = iterator;
+		}
+
+		public boolean hasNext() {
+			long startBytes = threadAllocatedBytes();
+			long startNanos = System.nanoTime();
+			try {
+				return iterator.hasNext();
+			} finally {
+				measure(startNanos, startBytes);
+			}
+		}
+
+		public E next() {
+			long startBytes = threadAllocatedBytes();
+			long startNanos = System.nanoTime();
+			try {
+				E next = iterator.next();
+				elements++;
+				return next;
+			} finally {
+				measure(startNanos, startBytes);
+			}
+		}
+
+		@Override
+		public void remove() {
+			iterator.remove();
+		}
+
+		public void close() throws IOException {
+			if (iterator instanceof Closeable) {
+				((Closeable) iterator).close();
+			}
+		}
+	}
+
+	/*
+	 * Class Methods
+	 */
+	/**
+	 * Bytes allocated so far by the current thread, or 0 if the JVM does not tell.
+	 */
+	private static long threadAllocatedBytes() {
+		if (ALLOCATED_BYTES == null) {
+			return 0;
+		}
+		try {
+			long thread = Thread.currentThread().getId();
+			return (Long) ALLOCATED_BYTES.invoke(THREADS, thread);
+		} catch (Exception e) {
+			return 0;
+		}
+	}
+
+	private static Method allocatedBytesMethod() {
+		try {
+			Class<?> extension = Class.forName("com.sun.management.ThreadMXBean");
+			if (!extension.isInstance(THREADS)) {
+				return null;
+			}
+			Method method = extension.getMethod("getThreadAllocatedBytes", long.class);
+			Method enabled = extension.getMethod("isThreadAllocatedMemoryEnabled");
+			if (!Boolean.TRUE.equals(enabled.invoke(THREADS))) {
+				return null;
+			}
+			return method;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
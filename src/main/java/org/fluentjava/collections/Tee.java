@@ -0,0 +1,224 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.iterators.AbstractExtendedIterator;
+import org.fluentjava.iterators.ExtendedIterable;
+import org.fluentjava.iterators.ExtendedIterator;
+
+/**
+ * Implements {@link Enumerable#tee(int, int)} and
+ * {@link Enumerable#multicast(Iterable, int)}: splits one iteration of a source into
+ * several branches, each of which returns all of its elements. Elements are read from
+ * the source once, and kept in a ring buffer until every branch has returned them.
+ *
+ * When consumers run on their own threads (multicast), a branch that gets a full buffer
+ * ahead of the slowest one waits for it to move. Otherwise, waiting could never end, so
+ * an {@link IllegalStateException} is thrown instead.
+ *
+ * @param <E>
+ */
+class Tee<E> {
+	/*
+	 * Constants
+	 */
+	static final int DEFAULT_BUFFER_SIZE = 1024;
+
+	/*
+	 * Variables
+	 */
+	private final Iterable<E> source;
+	private final Object[] buffer;
+	private final long[] positions;
+	private final boolean[] closed;
+	private boolean concurrent;
+	private Iterator<E> iterator;
+	private long read;
+	private boolean exhausted;
+	private RuntimeException failure;
+
+	/*
+	 * Constructors
+	 */
+	Tee(Iterable<E> source, int branches, int bufferSize) {
+		if (branches <= 0) {
+			throw new IllegalArgumentException("Need at least one branch:" + branches);
+		}
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size must be positive:"
+					+ bufferSize);
+		}
+		this.source = source;
+		this.buffer = new Object[bufferSize];
+		this.positions = new long[branches];
+		this.closed = new boolean[branches];
+	}
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * One Enumerable per branch. Each can only be iterated once.
+	 *
+	 * @return
+	 */
+	FluentList<Enumerable<E>> branches() {
+		FluentList<Enumerable<E>> ret = new Sequence<Enumerable<E>>();
+		for (int i = 0; i < positions.length; i++) {
+			ret.add(new Enumerator<E>(new Branch(i)));
+		}
+		return ret;
+	}
+
+	/**
+	 * Calls each consumer with its own branch, each one on its own thread, and returns
+	 * their results in order. A branch is closed once its consumer returns, so consumers
+	 * do not need to read all of it.
+	 *
+	 * @param consumers
+	 * @return
+	 */
+	FluentList<Object> multicast(List<Closure> consumers) {
+		concurrent = true;
+		final FluentList<Enumerable<E>> branches = branches();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < consumers.size(); i++) {
+			final int branch = i;
+			final Closure consumer = consumers.get(i);
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					try {
+						return consumer.call(branches.get(branch));
+					} finally {
+						close(branch);
+					}
+				}
+			});
+		}
+		return new Sequence<Object>(ParallelTasks.invokeEachInOwnThread(tasks));
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private synchronized boolean hasNext(int branch) {
+		while (positions[branch] == read) {
+			if (failure != null) {
+				throw failure;
+			}
+			if (exhausted) {
+				return false;
+			}
+			if (read - slowest() < buffer.length) {
+				fetch();
+			}
+			else {
+				await(branch);
+			}
+		}
+		return true;
+	}
+
+	private synchronized E next(int branch) {
+		if (!hasNext(branch)) {
+			throw new NoSuchElementException();
+		}
+		int index = (int) (positions[branch] % buffer.length);
+		E ret = as(buffer[index]);
+		positions[branch]++;
+		if (positions[branch] - 1 == slowest()) {
+			notifyAll();
+		}
+		return ret;
+	}
+
+	private synchronized void close(int branch) {
+		closed[branch] = true;
+		notifyAll();
+	}
+
+	private void fetch() {
+		try {
+			if (iterator == null) {
+				iterator = source.iterator();
+			}
+			if (iterator.hasNext()) {
+				buffer[(int) (read % buffer.length)] = iterator.next();
+				read++;
+			}
+			else {
+				exhausted = true;
+			}
+		} catch (RuntimeException e) {
+			failure = e;
+			throw e;
+		} finally {
+			notifyAll();
+		}
+	}
+
+	private void await(int branch) {
+		if (!concurrent) {
+			throw new IllegalStateException("Branch " + branch + " cannot get more than "
+					+ buffer.length + " elements ahead of the others");
+		}
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EnumeratingException(e);
+		}
+	}
+
+	/**
+	 * Position of the slowest open branch, or of the source if all are closed.
+	 */
+	private long slowest() {
+		long ret = read;
+		for (int i = 0; i < positions.length; i++) {
+			if (!closed[i]) {
+				ret = Math.min(ret, positions[i]);
+			}
+		}
+		return ret;
+	}
+
+	/*
+	 * Helper Classes
+	 */
+	/**
+	 * One branch of the tee.
+	 */
+	private class Branch implements ExtendedIterable<E> {
+		private final int index;
+		private boolean iterated;
+
+		Branch(int index) {
+			this.index = index;
+		}
+
+		public synchronized ExtendedIterator<E> iterator() {
+			if (iterated) {
+				String message = "Branches of a tee can only be iterated once";
+				throw new IllegalStateException(message);
+			}
+			iterated = true;
+			return new AbstractExtendedIterator<E>() {
+				public boolean hasNext() {
+					return Tee.this.hasNext(index);
+				}
+
+				public E next() {
+					return Tee.this.next(index);
+				}
+			};
+		}
+	}
+}
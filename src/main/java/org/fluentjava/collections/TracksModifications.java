@@ -0,0 +1,17 @@
+package org.fluentjava.collections;
+
+/**
+ * A collection that can tell whether it has been modified, without comparing its
+ * elements. {@link Sequence}, {@link ExtendedSet} and {@link Dictionary} implement it.
+ * 
+ * @see Enumerable#cache()
+ */
+public interface TracksModifications {
+	/**
+	 * A value that is different after every modification, so that comparing it with one
+	 * obtained earlier tells whether the collection has been modified since.
+	 * 
+	 * @return
+	 */
+	long modificationStamp();
+}
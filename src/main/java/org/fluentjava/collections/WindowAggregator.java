@@ -0,0 +1,30 @@
+package org.fluentjava.collections;
+
+import org.fluentjava.Aggregators;
+
+/**
+ * {@link Aggregator} that can also remove the oldest element it accumulated, so that the
+ * result of a sliding window is updated as elements enter and leave it, instead of
+ * aggregating every window again. Used by
+ * {@link Enumerable#islidingWindow(int, int, WindowAggregator)}.
+ *
+ * Instead of subclassing this class, try using {@link Aggregators} static methods, such
+ * as {@link Aggregators#slidingSum()} and {@link Aggregators#slidingMax()}.
+ *
+ * @param <R>
+ * Type of the result.
+ */
+public abstract class WindowAggregator<R> extends Aggregator<R> {
+
+	/**
+	 * Removes the oldest element still accumulated, which is given. Elements are removed
+	 * in the same order they were added.
+	 *
+	 * @param element
+	 * @throws Exception
+	 */
+	public abstract void remove(Object element) throws Exception;
+
+	@Override
+	public abstract WindowAggregator<R> emptyCopy();
+}
@@ -0,0 +1,118 @@
+package org.fluentjava.collections;
+
+/**
+ * Operations of {@link Enumerable} that group consecutive elements: batches, slices, and
+ * sliding or tumbling windows, optionally aggregated.
+ * 
+ * @param <E>
+ * Type of Elements.
+ */
+public interface Windowing<E> {
+	/**
+	 * Splits the elements in lists of n consecutive elements. The last one has the
+	 * remaining elements, so it may be smaller.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<FluentList<E>> batch(int n) throws EnumeratingException;
+
+	/**
+	 * Lazy version of {@link #batch(int)}: only n elements are read ahead.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<FluentList<E>> ibatch(int n) throws EnumeratingException;
+
+	/**
+	 * Same as {@link #ibatch(int)}. If reuseBuffer is true, the same list is cleared and
+	 * refilled for every chunk, so nothing is allocated per chunk. It is only safe when
+	 * each chunk is done with before asking for the next one.
+	 * 
+	 * @param n
+	 * @param reuseBuffer
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<FluentList<E>> ibatch(int n, boolean reuseBuffer)
+			throws EnumeratingException;
+
+	/**
+	 * Alias to {@link #batch(int)}.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	FluentList<FluentList<E>> eachSlice(int n) throws EnumeratingException;
+
+	/**
+	 * Alias to {@link #ibatch(int)}.
+	 * 
+	 * @param n
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<FluentList<E>> ieachSlice(int n) throws EnumeratingException;
+
+	/**
+	 * Lazily returns lists of size consecutive elements, starting every step elements: the
+	 * first window has the elements 0 to size - 1, the second has the elements step to
+	 * step + size - 1, and so on. Windows overlap when step is smaller than size, and
+	 * elements between windows are skipped when it is greater. Only complete windows are
+	 * returned. Every window is a new list; to aggregate windows without copying them, see
+	 * {@link #islidingWindow(int, int, WindowAggregator)}.
+	 * 
+	 * @param size
+	 * @param step
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<FluentList<E>> islidingWindow(int size, int step)
+			throws EnumeratingException;
+
+	/**
+	 * Lazily returns the result of the aggregator for every window of
+	 * {@link #islidingWindow(int, int)}. Overlapping windows are updated as elements enter
+	 * and leave them, using {@link WindowAggregator#remove(Object)}, so each element is
+	 * only added and removed once, whatever the size of the windows. For instance,
+	 * islidingWindow(10, 1, Aggregators.slidingAverage()) returns a moving average.
+	 * 
+	 * @param <R>
+	 * @param size
+	 * @param step
+	 * @param aggregator
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<R> islidingWindow(int size, int step, WindowAggregator<R> aggregator)
+			throws EnumeratingException;
+
+	/**
+	 * Lazily returns lists of size consecutive elements, that do not overlap. Same as
+	 * {@link #islidingWindow(int, int)} with a step of size. Unlike {@link #ibatch(int)},
+	 * an incomplete last window is not returned.
+	 * 
+	 * @param size
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	Enumerable<FluentList<E>> itumblingWindow(int size) throws EnumeratingException;
+
+	/**
+	 * Lazily returns the result of the aggregator for every window of
+	 * {@link #itumblingWindow(int)}. Each window is aggregated by an empty copy of the
+	 * aggregator, so any {@link Aggregator} can be used.
+	 * 
+	 * @param <R>
+	 * @param size
+	 * @param aggregator
+	 * @return
+	 * @throws EnumeratingException
+	 */
+	<R> Enumerable<R> itumblingWindow(int size, Aggregator<R> aggregator)
+			throws EnumeratingException;
+}
@@ -0,0 +1,61 @@
+package org.fluentjava.iterators;
+
+import java.util.NoSuchElementException;
+
+/**
+ * ExtendedIterator that finds its next element ahead of time, so that subclasses only
+ * need to implement {@link #computeNext()}. Unlike a null look ahead, null elements are
+ * supported.
+ * 
+ * @param <T>
+ */
+public abstract class AbstractLookAheadIterator<T> extends AbstractExtendedIterator<T> {
+	/*
+	 * Variables
+	 */
+	private T lookAhead;
+	private boolean ready;
+	private boolean done;
+
+	/*
+	 * Public Methods
+	 */
+	public boolean hasNext() {
+		if (!ready && !done) {
+			lookAhead = computeNext();
+			ready = !done;
+		}
+		return ready;
+	}
+
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T ret = lookAhead;
+		lookAhead = null;
+		ready = false;
+		return ret;
+	}
+
+	/*
+	 * Other Methods
+	 */
+	/**
+	 * Finds the next element. When there are no more elements, must return
+	 * {@link #endOfData()}. Never called again after that.
+	 * 
+	 * @return
+	 */
+	protected abstract T computeNext();
+
+	/**
+	 * Marks the end of the iteration.
+	 * 
+	 * @return null, so that it can be returned by {@link #computeNext()}.
+	 */
+	protected final T endOfData() {
+		done = true;
+		return null;
+	}
+}
@@ -28,7 +28,7 @@ public class LimitedIterator<T> extends ExtendedIteratorAdapter<T> {
 	
 	@Override
 	public boolean hasNext() {
-		return super.hasNext() && count > 0;
+		return count > 0 && super.hasNext();
 	}
 	
 	@Override
@@ -0,0 +1,143 @@
+package org.fluentjava.iterators;
+
+import static org.fluentjava.FluentUtils.as;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Iterator that merges several iterators, each already sorted by the comparator, into one
+ * sorted iteration. Equal elements are returned in the order of their iterators, so the
+ * merge is stable, and, optionally, only the first of several equal elements is returned.
+ * Cannot remove items.
+ * 
+ * The next element of each iterator is kept in a loser tree: every internal node holds
+ * the iterator that lost the comparison there, so that after taking the winner only the
+ * path from its leaf to the root is compared again, about log2(k) comparisons for k
+ * iterators.
+ * 
+ * @param <T>
+ */
+public class MergingIterator<T> extends AbstractLookAheadIterator<T> {
+	/*
+	 * Variables
+	 */
+	private final Iterator<? extends T>[] iterators;
+	private final Comparator<? super T> comparator;
+	private final boolean distinct;
+	private final Object[] heads;
+	private final boolean[] exhausted;
+	private final int[] losers;
+	private int winner;
+	private T last;
+	private boolean returned;
+
+	/*
+	 * Constructors
+	 */
+	/**
+	 * @param comparator
+	 * @param distinct
+	 * If true, elements equal to the previous one, according to the comparator, are
+	 * skipped.
+	 * @param iterators
+	 * Each one sorted by the comparator.
+	 */
+	public MergingIterator(Comparator<? super T> comparator, boolean distinct,
+			Iterator<? extends T>... iterators) {
+		this.iterators = iterators;
+		this.comparator = comparator;
+		this.distinct = distinct;
+		this.heads = new Object[iterators.length];
+		this.exhausted = new boolean[iterators.length];
+		this.losers = new int[iterators.length];
+		for (int i = 0; i < iterators.length; i++) {
+			advance(i);
+		}
+		build();
+	}
+
+	/*
+	 * Other Methods
+	 */
+	@Override
+	protected T computeNext() {
+		while (iterators.length > 0 && !exhausted[winner]) {
+			T ret = as(heads[winner]);
+			advance(winner);
+			replay(winner);
+			if (!distinct || !returned || comparator.compare(last, ret) != 0) {
+				last = ret;
+				returned = true;
+				return ret;
+			}
+		}
+		return endOfData();
+	}
+
+	private void advance(int i) {
+		if (iterators[i].hasNext()) {
+			heads[i] = iterators[i].next();
+		}
+		else {
+			heads[i] = null;
+			exhausted[i] = true;
+		}
+	}
+
+	/**
+	 * Plays every match from the leaves up. Leaf i is node k + i, and the children of
+	 * node n are 2n and 2n + 1.
+	 */
+	private void build() {
+		int k = iterators.length;
+		int[] winners = new int[2 * k];
+		for (int i = 0; i < k; i++) {
+			winners[k + i] = i;
+		}
+		for (int node = k - 1; node >= 1; node--) {
+			int left = winners[2 * node];
+			int right = winners[2 * node + 1];
+			if (beats(left, right)) {
+				winners[node] = left;
+				losers[node] = right;
+			}
+			else {
+				winners[node] = right;
+				losers[node] = left;
+			}
+		}
+		if (k > 1) {
+			winner = winners[1];
+		}
+	}
+
+	/**
+	 * Plays the matches on the path from the leaf of iterator i to the root.
+	 */
+	private void replay(int i) {
+		int current = i;
+		for (int node = (i + iterators.length) >> 1; node >= 1; node >>= 1) {
+			if (beats(losers[node], current)) {
+				int loser = current;
+				current = losers[node];
+				losers[node] = loser;
+			}
+		}
+		winner = current;
+	}
+
+	/**
+	 * Whether the head of iterator i goes before the head of iterator j. Exhausted
+	 * iterators go last, and equal heads go in the order of their iterators.
+	 */
+	private boolean beats(int i, int j) {
+		if (exhausted[i] || exhausted[j]) {
+			return !exhausted[i];
+		}
+		T first = as(heads[i]);
+		T second = as(heads[j]);
+		int comparison = comparator.compare(first, second);
+		return comparison < 0 || comparison == 0 && i < j;
+	}
+}
@@ -0,0 +1,17 @@
+package org.fluentjava.iterators;
+
+/**
+ * ExtendedIterator that can move past elements without producing them, in less time than
+ * calling next for each of them.
+ * 
+ * @param <T>
+ */
+public interface SkippableIterator<T> extends ExtendedIterator<T> {
+	/**
+	 * Moves past the next n elements, as n calls to next would.
+	 * 
+	 * @param n
+	 * @return How many elements were skipped; less than n only if there were not enough.
+	 */
+	int skip(int n);
+}
@@ -0,0 +1,132 @@
+package org.fluentjava.iterators;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Walks any number of Iterables in lockstep, while all of them have elements, like a
+ * {@link CompositeIterator} of n sources. Instead of returning a tuple per step, it
+ * exposes the current element of each source through {@link #current(int)}, so stepping
+ * allocates nothing. Sources that are {@link RandomAccess} lists are read by index,
+ * without iterators.
+ *
+ * <pre>
+ * ZipCursor cursor = new ZipCursor(names, ages);
+ * while (cursor.next()) {
+ * 	String name = cursor.current(0);
+ * 	Integer age = cursor.current(1);
+ * }
+ * </pre>
+ */
+public class ZipCursor {
+	/*
+	 * Variables
+	 */
+	private final List<?>[] lists;
+	private final Iterator<?>[] iterators;
+	private final Object[] values;
+	private int limit = Integer.MAX_VALUE;
+	private int index = -1;
+	private boolean exhausted;
+
+	/*
+	 * Constructors
+	 */
+	public ZipCursor(Iterable<?>... sources) {
+		int n = sources.length;
+		lists = new List<?>[n];
+		iterators = new Iterator<?>[n];
+		values = new Object[n];
+		for (int i = 0; i < n; i++) {
+			if (sources[i] instanceof List<?> && sources[i] instanceof RandomAccess) {
+				lists[i] = (List<?>) sources[i];
+				limit = Math.min(limit, lists[i].size());
+			}
+			else {
+				iterators[i] = sources[i].iterator();
+			}
+		}
+	}
+
+	/*
+	 * Public Methods
+	 */
+	/**
+	 * Moves to the next element of every source.
+	 *
+	 * @return false if any source has no more elements. The cursor does not move again
+	 * after that.
+	 */
+	public boolean next() {
+		if (exhausted || index + 1 >= limit || !allIteratorsHaveNext()) {
+			exhausted = true;
+			return false;
+		}
+		index++;
+		for (int i = 0; i < values.length; i++) {
+			if (lists[i] != null) {
+				values[i] = lists[i].get(index);
+			}
+			else {
+				values[i] = iterators[i].next();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The element of the source i at the current position.
+	 *
+	 * @param <T>
+	 * Inferred type.
+	 * @param i
+	 * index of the source, in the order given to the constructor.
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T current(int i) {
+		if (index < 0 || exhausted) {
+			throw new IllegalStateException("Cursor is not on an element");
+		}
+		return (T) values[i];
+	}
+
+	/**
+	 * The current elements of all sources. The array is owned by the cursor and
+	 * overwritten by every {@link #next()}, so it must not be kept.
+	 *
+	 * @return
+	 */
+	public Object[] values() {
+		return values;
+	}
+
+	/**
+	 * Position of the cursor, starting at 0. It is -1 before the first {@link #next()}.
+	 *
+	 * @return
+	 */
+	public int index() {
+		return index;
+	}
+
+	/**
+	 * @return The amount of sources.
+	 */
+	public int width() {
+		return values.length;
+	}
+
+	/*
+	 * Other Methods
+	 */
+	private boolean allIteratorsHaveNext() {
+		for (Iterator<?> it : iterators) {
+			if (it != null && !it.hasNext()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
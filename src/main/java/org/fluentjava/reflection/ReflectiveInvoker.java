@@ -2,7 +2,6 @@ package org.fluentjava.reflection;
 
 import static java.util.Arrays.asList;
 import static org.fluentjava.FluentUtils.pair;
-import static org.fluentjava.iterators.CompositeIterator.fromIterables;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
@@ -12,8 +11,8 @@ import java.util.List;
 
 import org.fluentjava.FluentUtils;
 import org.fluentjava.collections.FluentMap;
-import org.fluentjava.collections.Pair;
 import org.fluentjava.iterators.CountingIterator;
+import org.fluentjava.iterators.ZipCursor;
 
 /**
  * Invokes a method based only the name of the method and the class of the object whose
@@ -196,9 +195,10 @@ public class ReflectiveInvoker {
 	}
 
 	private boolean argumentsMatchParameters(Method method, List<Object> arguments) {
-		List<Class<?>> argTypes = asList(method.getParameterTypes());
-		for (Pair<Class<?>, Object> pair : fromIterables(argTypes, arguments)) {
-			if (!canArgumentBeAssignedToType(pair.first, pair.second)) {
+		ZipCursor cursor = new ZipCursor(asList(method.getParameterTypes()), arguments);
+		while (cursor.next()) {
+			Class<?> type = cursor.current(0);
+			if (!canArgumentBeAssignedToType(type, cursor.current(1))) {
 				return false;
 			}
 		}
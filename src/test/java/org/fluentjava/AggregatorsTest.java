@@ -0,0 +1,225 @@
+package org.fluentjava;
+
+import static java.util.Arrays.asList;
+import static org.fluentjava.Aggregators.approxCountDistinct;
+import static org.fluentjava.Aggregators.approxQuantiles;
+import static org.fluentjava.Aggregators.average;
+import static org.fluentjava.Aggregators.count;
+import static org.fluentjava.Aggregators.each;
+import static org.fluentjava.Aggregators.first;
+import static org.fluentjava.Aggregators.last;
+import static org.fluentjava.Aggregators.max;
+import static org.fluentjava.Aggregators.min;
+import static org.fluentjava.Aggregators.minBy;
+import static org.fluentjava.Aggregators.reduce;
+import static org.fluentjava.Aggregators.slidingAverage;
+import static org.fluentjava.Aggregators.slidingMax;
+import static org.fluentjava.Aggregators.slidingMinBy;
+import static org.fluentjava.Aggregators.slidingSum;
+import static org.fluentjava.Aggregators.sum;
+import static org.fluentjava.Aggregators.toList;
+import static org.fluentjava.Aggregators.toSet;
+import static org.fluentjava.FluentUtils.list;
+import static org.fluentjava.FluentUtils.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.closures.Predicate;
+import org.fluentjava.collections.Aggregator;
+import org.fluentjava.collections.Enumerable;
+import org.fluentjava.collections.FluentList;
+import org.junit.Test;
+
+public class AggregatorsTest {
+
+	@Test
+	public void testSeveralAggregatesInOnePass() throws Exception {
+		FluentList<Integer> list = list(3, 1, 4, 1, 5);
+		FluentList<Object> result = list.aggregate(count(), min(), max(), sum(), average());
+		assertEquals(asList(5, 1, 5, 14L, 2.8), result);
+	}
+
+	@Test
+	public void testClosuresOfLazyEnumerablesAreCalledOnce() throws Exception {
+		final int[] calls = {0};
+		Enumerable<Integer> lazy = list(1, 2, 3).imap(new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				calls[0]++;
+				Integer i = first(args);
+				return i * 10;
+			}
+		});
+		assertEquals(asList(3, 10, 30, 60L), lazy.aggregate(count(), first(), last(), sum()));
+		assertEquals(3, calls[0]);
+	}
+
+	@Test
+	public void testAggregatorsOnEmptyEnumerables() throws Exception {
+		FluentList<Integer> list = list();
+		assertEquals(asList(0, null, null, 0L, null), list.aggregate(count(), max(),
+				first(), sum(), average()));
+	}
+
+	@Test
+	public void testSumBecomesRealWithRealNumbers() throws Exception {
+		FluentList<Number> list = FluentUtils.<Number>list(1, 2.5, 3L);
+		assertEquals(asList(6.5), list.aggregate(sum()));
+	}
+
+	@Test
+	public void testCountWithPredicateAndMinByAndCustomReduce() throws Exception {
+		FluentList<String> list = list("three", "one", "four", "two");
+		Predicate longWords = new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				String s = first(args);
+				return s.length() > 3;
+			}
+		};
+		Closure concat = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				return first(args).toString() + second(args);
+			}
+		};
+		assertEquals(asList(2, "one", "threeonefourtwo", ">threeonefourtwo"), list
+				.aggregate(count(longWords), minBy("length"), reduce(concat), reduce(">",
+						concat)));
+	}
+
+	@Test
+	public void testSpecificationsAreReusable() throws Exception {
+		Aggregator<Integer> count = count();
+		list(1, 2).aggregate(count);
+		assertEquals(asList(3), list(1, 2, 3).aggregate(count));
+	}
+
+	@Test
+	public void testMerging() throws Exception {
+		Aggregator<Number> left = sum().emptyCopy();
+		Aggregator<Number> right = left.emptyCopy();
+		left.add(1);
+		right.add(2);
+		left.merge(right);
+		assertEquals(3L, left.result());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReduceWithInitialValueCannotBeMerged() throws Exception {
+		Aggregator<Integer> reducer = reduce(0, "toString");
+		reducer.merge(reducer.emptyCopy());
+	}
+
+	@Test
+	public void testCollectingSinks() throws Exception {
+		final FluentList<Object> printed = list();
+		Closure print = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				return printed.add("<" + args[0] + ">");
+			}
+		};
+		FluentList<Integer> list = list(2, 1, 2);
+		FluentList<Object> result = list.aggregate(toList(), toSet(), each(print));
+		assertEquals(asList(asList(2, 1, 2), set(1, 2), null), result);
+		assertEquals(asList("<2>", "<1>", "<2>"), printed);
+	}
+
+	@Test
+	public void testSlidingAggregates() throws Exception {
+		FluentList<Integer> list = list(3, 1, 4, 1, 5, 9, 2, 6);
+		assertEquals(asList(4, 4, 5, 9, 9, 9), list.islidingWindow(3, 1, slidingMax())
+				.toList());
+		assertEquals(asList(8L, 6L, 10L, 15L, 16L, 17L), list.islidingWindow(3, 1,
+				slidingSum()).toList());
+		assertEquals(asList(2.0, 2.5, 2.5), list.itake(5).islidingWindow(2, 1,
+				slidingAverage()).itake(3).toList());
+	}
+
+	@Test
+	public void testSlidingMinimumKeepsTheFirstOfEqualElements() throws Exception {
+		FluentList<String> list = list("bb", "a", "c", "dd", "ee", "ff");
+		assertEquals(asList("a", "a", "c", "dd"), list.islidingWindow(3, 1,
+				slidingMinBy("length")).toList());
+	}
+
+	@Test
+	public void testSlidingSumOfRealsBecomesIntegralAgain() throws Exception {
+		FluentList<Number> list = FluentUtils.<Number>list(1, 0.5, 2, 3);
+		assertEquals(asList(1.5, 2.5, 5L), list.islidingWindow(2, 1, slidingSum()).toList());
+	}
+
+	@Test
+	public void testSlidingMaximumOfLargeWindows() throws Exception {
+		FluentList<Integer> list = list();
+		FluentList<Integer> expected = list();
+		for (int i = 0; i < 100; i++) {
+			list.add(-i);
+			if (i + 40 <= 100) {
+				expected.add(-i);
+			}
+		}
+		assertEquals(expected, list.islidingWindow(40, 1, slidingMax()).toList());
+	}
+
+	@Test
+	public void testApproxCountDistinctIsCloseAndMerges() throws Exception {
+		Aggregator<Long> all = approxCountDistinct().emptyCopy();
+		Aggregator<Long> left = all.emptyCopy();
+		Aggregator<Long> right = all.emptyCopy();
+		for (int i = 0; i < 100000; i++) {
+			all.add("e" + i % 50000);
+			if (i < 60000) {
+				left.add("e" + i % 50000);
+			}
+			else {
+				right.add("e" + i % 50000);
+			}
+		}
+		assertTrue(Math.abs(all.result() - 50000) < 1500);
+		left.merge(right);
+		assertEquals(all.result(), left.result());
+	}
+
+	@Test
+	public void testApproxCountDistinctOfFewIsExact() throws Exception {
+		FluentList<String> list = list("three", "one", "four", "one", "five", "nine");
+		assertEquals(asList(5L, 3L), list.aggregate(approxCountDistinct(),
+				approxCountDistinct("length")));
+		assertEquals(asList(0L), list().aggregate(approxCountDistinct()));
+	}
+
+	@Test
+	public void testApproxQuantilesAreCloseAndMerge() throws Exception {
+		Aggregator<FluentList<Integer>> sketch = approxQuantiles(0, 0.1, 0.5, 0.99, 1);
+		Aggregator<FluentList<Integer>> left = sketch.emptyCopy();
+		Aggregator<FluentList<Integer>> right = sketch.emptyCopy();
+		for (int i = 0; i < 100000; i++) {
+			int value = (i * 7919) % 100000;
+			if (i % 3 == 0) {
+				left.add(value);
+			}
+			else {
+				right.add(value);
+			}
+		}
+		left.merge(right);
+		FluentList<Integer> result = left.result();
+		assertTrue(result.get(0) < 2000);
+		assertTrue(result.get(4) > 98000);
+		assertTrue(Math.abs(result.get(1) - 10000) < 2000);
+		assertTrue(Math.abs(result.get(2) - 50000) < 2000);
+		assertTrue(Math.abs(result.get(3) - 99000) < 2000);
+	}
+
+	@Test
+	public void testApproxQuantilesOfFewAreExact() throws Exception {
+		FluentList<String> list = list("pear", "fig", "apple", "kiwi", "plum");
+		double[] quantiles = {0.2, 0.4, 1};
+		assertEquals(asList(asList("apple", "kiwi", "plum"), asList(3, 4, 5)), list.aggregate(
+				approxQuantiles(0, 0.5, 1), approxQuantiles("length", quantiles)));
+		assertEquals(asList(asList(null, null)), list().aggregate(approxQuantiles(0.2, 0.8)));
+	}
+}
@@ -0,0 +1,70 @@
+package org.fluentjava;
+
+import static java.util.Arrays.asList;
+import static org.fluentjava.Enumerables.mergeSorted;
+import static org.fluentjava.FluentUtils.list;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.fluentjava.closures.Closure;
+import org.fluentjava.collections.Enumerable;
+import org.fluentjava.collections.FluentList;
+import org.fluentjava.collections.Pair;
+import org.junit.Test;
+
+public class EnumerablesTest {
+
+	@Test
+	public void testMergeSortedSources() throws Exception {
+		List<Integer> empty = Collections.emptyList();
+		Enumerable<Integer> merged = mergeSorted(null, list(1, 4, 7), empty, list(2, 3, 8, 9),
+				list(5));
+		assertEquals(asList(1, 2, 3, 4, 5, 7, 8, 9), merged.toList());
+		assertEquals(merged.toList(), merged.toList());
+		assertEquals(asList(), mergeSorted(null).toList());
+	}
+
+	@Test
+	public void testMergeSortedLikeSortingForAnyAmountOfSources() throws Exception {
+		Random random = new Random(1);
+		for (int k = 1; k <= 9; k++) {
+			FluentList<Integer>[] sources = FluentUtils.as(new FluentList<?>[k]);
+			FluentList<Integer> all = list();
+			for (int i = 0; i < k; i++) {
+				sources[i] = list();
+				for (int j = random.nextInt(20); j > 0; j--) {
+					sources[i].add(random.nextInt(10));
+				}
+				sources[i] = sources[i].sort();
+				all.addAll(sources[i]);
+			}
+			assertEquals(all.sort(), mergeSorted(null, sources).toList());
+			assertEquals(all.sort().idistinct(true).toList(), mergeSorted(null, true, sources)
+					.toList());
+		}
+	}
+
+	@Test
+	public void testEqualElementsKeepTheOrderOfTheirSources() throws Exception {
+		FluentList<Pair<Integer, String>> left = list(pair(1, "a"), pair(2, "a"), pair(2, "b"));
+		FluentList<Pair<Integer, String>> right = list(pair(1, "c"), pair(2, "c"));
+		Closure byFirst = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				Pair<Integer, String> i = first(args);
+				Pair<Integer, String> j = second(args);
+				return i.first.compareTo(j.first);
+			}
+		};
+		FluentList<Pair<Integer, String>> merged = mergeSorted(byFirst, left, right).toList();
+		assertEquals(list(pair(1, "a"), pair(1, "c"), pair(2, "a"), pair(2, "b"), pair(2, "c")),
+				merged);
+	}
+
+	private Pair<Integer, String> pair(Integer first, String second) {
+		return FluentUtils.pair(first, second);
+	}
+}
@@ -0,0 +1,94 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.fluentjava.closures.Closure;
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	@Test
+	public void testNoFalseNegativesAndFewFalsePositives() throws Exception {
+		BloomFilter<Long> filter = new BloomFilter<Long>(100000, 0.01);
+		for (long i = 0; i < 100000; i++) {
+			filter.insert(i * 3);
+		}
+		int falsePositives = 0;
+		for (long i = 0; i < 300000; i++) {
+			if (i % 3 == 0) {
+				assertTrue(filter.contains(i));
+			}
+			else if (filter.contains(i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 200000 * 0.015);
+		assertTrue(Math.abs(filter.approximateSize() - 100000) < 3000);
+	}
+
+	@Test
+	public void testReadSideOfASet() throws Exception {
+		BloomFilter<String> filter = new BloomFilter<String>(10, 0.001);
+		assertTrue(filter.isEmpty());
+		assertFalse(filter.contains("a"));
+		filter.insert("a", "b").insert(asList("c", null));
+		assertFalse(filter.isEmpty());
+		assertTrue(filter.containsAll("a", "b", "c", null));
+		assertTrue(filter.containsAny("z", "c"));
+		assertFalse(filter.containsAll("a", "z"));
+		assertFalse(filter.containsAny(asList("x", "y", "z")));
+		assertEquals(4, filter.approximateSize());
+	}
+
+	@Test
+	public void testPrefilterLooksUpOnlyElementsThatPassTheFilter() throws Exception {
+		final int[] lookups = {0};
+		Set<Integer> ids = new HashSet<Integer>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean contains(Object o) {
+				lookups[0]++;
+				return super.contains(o);
+			}
+		};
+		for (int i = 0; i < 1000; i++) {
+			ids.add(i * 2);
+		}
+		BloomFilter<Integer> filter = new BloomFilter<Integer>(ids, 0.01);
+		Sequence<Integer> numbers = new Sequence<Integer>();
+		for (int i = 0; i < 10000; i++) {
+			numbers.add(i);
+		}
+		FluentList<Integer> selected = numbers.select(filter.prefilter(ids));
+		assertEquals(1000, selected.size());
+		assertEquals(0, selected.get(0).intValue());
+		assertEquals(1998, selected.get(999).intValue());
+		assertTrue(lookups[0] < 1000 + 9000 * 0.02);
+	}
+
+	@Test
+	public void testPrefilterByKey() throws Exception {
+		Set<String> customers = new HashSet<String>(asList("a", "b"));
+		BloomFilter<String> filter = new BloomFilter<String>(customers, 0.01);
+		Sequence<String> orders = new Sequence<String>("a1", "c1", "b1", "d1");
+		assertEquals(asList("a1", "b1"), orders.iselect(filter.prefilter(new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				String order = first(args);
+				return order.substring(0, 1);
+			}
+		}, customers)).toList());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFalsePositiveRateMustBeBelowOne() throws Exception {
+		new BloomFilter<String>(10, 1);
+	}
+}
@@ -0,0 +1,106 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.fluentjava.closures.Predicate;
+import org.junit.Test;
+
+public class ConjunctiveFilterTest {
+
+	private int calls;
+
+	@Test
+	public void testChainedFiltersReturnTheSameElements() throws Exception {
+		FluentList<Integer> list = new Sequence<Integer>();
+		FluentList<Integer> expected = new Sequence<Integer>();
+		for (int i = 0; i < 5000; i++) {
+			list.add(i);
+			if (i % 2 == 0 && i % 3 != 0 && i % 7 == 0) {
+				expected.add(i);
+			}
+		}
+		Enumerable<Integer> filtered = list.iselect(multipleOf(2)).ireject(multipleOf(3))
+				.iselect(multipleOf(7));
+		assertEquals(expected, filtered.toList());
+		assertEquals(expected, filtered.toList());
+	}
+
+	@Test
+	public void testSelectivePredicatesMoveFirst() throws Exception {
+		FluentList<Integer> list = new Sequence<Integer>();
+		for (int i = 0; i < 10000; i++) {
+			list.add(i);
+		}
+		Predicate counted = new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				calls++;
+				return true;
+			}
+		};
+		Enumerable<Integer> filtered = list.iselect(counted).iselect(multipleOf(100));
+		assertEquals(100, filtered.count());
+		assertTrue(calls < 1000);
+	}
+
+	@Test
+	public void testReorderingDoesNotThrowWhatTheOriginalOrderWouldNot() throws Exception {
+		FluentList<String> list = new Sequence<String>();
+		for (int i = 0; i < 2000; i++) {
+			if (i % 10 == 0) {
+				list.add(null);
+			}
+			else if (i % 100 == 1) {
+				list.add("long");
+			}
+			else {
+				list.add("a");
+			}
+		}
+		Enumerable<String> filtered = list.iselect(notNull()).iselect(longerThan(3));
+		assertEquals(20, filtered.count());
+	}
+
+	@Test(expected = EnumeratingException.class)
+	public void testExceptionsOfTheOriginalOrderAreStillThrown() throws Exception {
+		FluentList<String> list = new Sequence<String>("long", null);
+		list.iselect(longerThan(3)).iselect(notNull()).toList();
+	}
+
+	@Test
+	public void testNullElementsAreSelected() throws Exception {
+		FluentList<String> list = new Sequence<String>(null, "a", null);
+		assertEquals(asList(null, null), list.ireject(notNull()).toList());
+	}
+
+	private Predicate multipleOf(final int n) {
+		return new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				Integer i = first(args);
+				return i % n == 0;
+			}
+		};
+	}
+
+	private Predicate notNull() {
+		return new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				return args[0] != null;
+			}
+		};
+	}
+
+	private Predicate longerThan(final int length) {
+		return new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				String s = first(args);
+				return s.length() > length;
+			}
+		};
+	}
+}
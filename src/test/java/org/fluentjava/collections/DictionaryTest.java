@@ -112,4 +112,16 @@ public class DictionaryTest {
 		assertEquals(value, dictionary.get(key));
 	}
 
+	@Test
+	public void testModificationStamp() throws Exception {
+		Dictionary<String, Integer> map = new Dictionary<String, Integer>();
+		long stamp = map.modificationStamp();
+		map.get("a");
+		assertEquals(stamp, map.modificationStamp());
+		map.put("a", 1);
+		assertTrue(stamp != map.modificationStamp());
+		stamp = map.modificationStamp();
+		map.keySet().remove("a");
+		assertTrue(stamp != map.modificationStamp());
+	}
 }
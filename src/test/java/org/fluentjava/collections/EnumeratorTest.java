@@ -7,13 +7,21 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
 
+import org.fluentjava.Aggregators;
+import org.fluentjava.Closures;
 import org.fluentjava.FluentUtils;
+import org.fluentjava.closures.BatchClosure;
 import org.fluentjava.closures.Closure;
 import org.fluentjava.closures.Predicate;
+import org.fluentjava.iterators.ZipCursor;
 import org.junit.Test;
 
 public class EnumeratorTest {
@@ -217,6 +225,75 @@ public class EnumeratorTest {
 		assertEquals(10, list.reduce(10, sumBlock()));
 	}
 
+	@Test
+	public void testParallelReduce() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3);
+		assertEquals(6, list.parallelReduce(0, sumBlock(), sumBlock()));
+	}
+
+	@Test
+	public void testParallelReduceOfEmptyListIsIdentity() throws Exception {
+		Enumerable<Integer> list = emptyEnum();
+		assertEquals(10, list.parallelInject(10, sumBlock(), sumBlock()));
+	}
+
+	@Test
+	public void testParallelReduceKeepsTheOrderOfAssociativeOperations() throws Exception {
+		Enumerable<Integer> list = list(FluentUtils.range(20000).array(Integer.class));
+		Closure append = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				StringBuilder partial = first(args);
+				Integer i = second(args);
+				return new StringBuilder(partial).append(i).append(',');
+			}
+		};
+		Closure concat = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				StringBuilder x = first(args);
+				StringBuilder y = second(args);
+				return new StringBuilder(x).append(y);
+			}
+		};
+		StringBuilder expected = new StringBuilder();
+		for (Integer i : list) {
+			expected.append(i).append(',');
+		}
+		StringBuilder result = list.parallelReduce(new StringBuilder(), append, concat);
+		assertEquals(expected.toString(), result.toString());
+	}
+
+	@Test
+	public void testGroupBy() throws Exception {
+		Enumerable<String> list = list("one", "two", "three", "four");
+		FluentMap<Integer, FluentList<String>> groups = list.groupBy("length");
+		assertEquals(map(pair(3, FluentUtils.list("one", "two")), pair(5, FluentUtils
+				.list("three")), pair(4, FluentUtils.list("four"))), groups);
+	}
+
+	@Test
+	public void testGroupByWithAggregator() throws Exception {
+		Enumerable<String> list = list("one", "two", "three", "four");
+		FluentMap<Integer, String> groups = list.groupBy("length", Aggregators.<String>last());
+		assertEquals(map(pair(3, "two"), pair(5, "three"), pair(4, "four")), groups);
+	}
+
+	@Test
+	public void testCountBy() throws Exception {
+		Enumerable<String> list = list("one", "two", "three", "four");
+		FluentMap<Integer, Integer> counts = list.countBy("length");
+		assertEquals(map(pair(3, 2), pair(5, 1), pair(4, 1)), counts);
+	}
+
+	@Test
+	public void testPartition() throws Exception {
+		Enumerable<Integer> list = list(1, 5, 2, 6, 3, 7);
+		Pair<FluentList<Integer>, FluentList<Integer>> parts = list.partition(greaterThan(4));
+		assertEquals(asList(5, 6, 7), parts.first);
+		assertEquals(asList(1, 2, 3), parts.second);
+	}
+
 	@Test
 	public void testTake() throws Exception {
 		Enumerable<Integer> list = list(1, 2, 3, 4);
@@ -232,6 +309,372 @@ public class EnumeratorTest {
 		assertEquals(asList(10, -20), taken.toList());
 	}
 
+	@Test
+	public void testMaxN() throws Exception {
+		Enumerable<Integer> list = list(5, 1, 9, 3, 7, 9);
+		assertEquals(asList(9, 9, 7), list.maxN(3));
+		assertEquals(asList(1, 3), list.minN(2));
+	}
+
+	@Test
+	public void testMaxNWithMoreThanAvailable() throws Exception {
+		Enumerable<Integer> list = list(2, 1);
+		assertEquals(asList(2, 1), list.maxN(5));
+		assertEquals(asList(), list.minN(0));
+		assertEquals(asList(1, 2), list.minN(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testMaxNOfMoreElementsThanTheInitialHeap() throws Exception {
+		FluentList<Integer> list = new Sequence<Integer>();
+		for (int i = 0; i < 100; i++) {
+			list.add((i * 37) % 100);
+		}
+		FluentList<Integer> expected = new Sequence<Integer>();
+		for (int i = 99; i >= 30; i--) {
+			expected.add(i);
+		}
+		assertEquals(expected, list.maxN(70));
+	}
+
+	@Test
+	public void testTopByKeepsIterationOrderOfTies() throws Exception {
+		Enumerable<String> list = list("bb", "a", "cc", "ddd", "ee", "f");
+		assertEquals(asList("ddd", "bb", "cc"), list.topBy(3, "length"));
+		assertEquals(asList("a", "f", "bb"), list.bottomBy(3, "length"));
+	}
+
+	@Test
+	public void testTopByOnLazyEnumerables() throws Exception {
+		Enumerable<Integer> lazy = list(1, 2, 3, 4, 5, 6).iselect(greaterThan(2));
+		assertEquals(asList(3, 4), lazy.bottomBy(2, Closures.identity()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaxNOfNegativeAmount() throws Exception {
+		list(1).maxN(-1);
+	}
+
+	@Test
+	public void testLazyDistinctKeepsFirstOccurrences() throws Exception {
+		Enumerable<Integer> list = list(3, 1, 3, null, 2, 1, null);
+		Enumerable<Integer> distinct = list.idistinct();
+		assertEquals(asList(3, 1, null, 2), distinct.toList());
+		assertEquals(asList(3, 1, null, 2), distinct.toList());
+	}
+
+	@Test
+	public void testLazyDistinctOnManyElements() throws Exception {
+		ArrayList<Object> expected = new ArrayList<Object>();
+		for (int i = 0; i < 1000; i++) {
+			data.add(i);
+			data.add(i);
+			expected.add(i);
+		}
+		Enumerable<Object> list = new Enumerator<Object>(data);
+		assertEquals(expected, list.idistinct().toList());
+		assertEquals(expected, list.idistinct(true).toList());
+	}
+
+	@Test
+	public void testLazyUniqBy() throws Exception {
+		Enumerable<String> list = list("bb", "a", "cc", "ddd", "e");
+		assertEquals(asList("bb", "a", "ddd"), list.iuniqBy("length").toList());
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3, 4, 5);
+		assertEquals(asList(asList(1, 2), asList(3, 4), asList(5)), list.batch(2));
+		assertEquals(asList(asList(1, 2, 3, 4, 5)), list.eachSlice(10));
+		assertEquals(asList(), emptyEnum().batch(3));
+	}
+
+	@Test
+	public void testLazyBatchReusingBuffer() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3, 4, 5);
+		ArrayList<Object> sums = new ArrayList<Object>();
+		FluentList<Integer> previous = null;
+		for (FluentList<Integer> chunk : list.ibatch(2, true)) {
+			assertTrue(previous == null || previous == chunk);
+			previous = chunk;
+			sums.add(chunk.inject(sumBlock()));
+		}
+		assertEquals(asList(3, 7, 5), sums);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchOfZeroElements() throws Exception {
+		list(1).ibatch(0);
+	}
+
+	@Test
+	public void testWindows() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3, 4, 5);
+		assertEquals(asList(asList(1, 2, 3), asList(2, 3, 4), asList(3, 4, 5)), list
+				.islidingWindow(3, 1).toList());
+		assertEquals(asList(asList(1, 2), asList(4, 5)), list.islidingWindow(2, 3).toList());
+		assertEquals(asList(asList(1, 2), asList(3, 4)), list.itumblingWindow(2).toList());
+		assertEquals(asList(), list.itumblingWindow(6).toList());
+		assertEquals(asList(), list.islidingWindow(Integer.MAX_VALUE, 1).toList());
+	}
+
+	@Test
+	public void testWindowsLargerThanTheInitialRing() throws Exception {
+		FluentList<Integer> list = new Sequence<Integer>();
+		for (int i = 0; i < 50; i++) {
+			list.add(i);
+		}
+		FluentList<FluentList<Integer>> windows = list.<FluentList<Integer>>islidingWindow(40,
+				5).toList();
+		assertEquals(3, windows.size());
+		assertEquals(list.subList(10, 50), windows.get(2));
+		assertEquals(asList(780L, 980L, 1180L), list.islidingWindow(40, 5,
+				Aggregators.slidingSum()).toList());
+	}
+
+	@Test
+	public void testWindowAggregates() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3, 4, 5);
+		assertEquals(asList(6L, 9L, 12L), list.islidingWindow(3, 1, Aggregators.slidingSum())
+				.toList());
+		assertEquals(asList(3L, 7L), list.islidingWindow(2, 2, Aggregators.slidingSum())
+				.toList());
+		assertEquals(asList(3, 7), list.itumblingWindow(2, Aggregators.reduce(sumBlock()))
+				.toList());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOverlappingWindowsNeedWindowAggregators() throws Exception {
+		new LazyWindow<Integer, Integer>(list(1), 2, 1, Aggregators.<Integer>max());
+	}
+
+	@Test
+	public void testMapCallsBatchClosuresOncePerChunk() throws Exception {
+		final ArrayList<Object> chunks = new ArrayList<Object>();
+		BatchClosure doubler = new BatchClosure(2) {
+			@Override
+			public List<?> callBatch(List<?> args) throws Exception {
+				chunks.add(new ArrayList<Object>(args));
+				ArrayList<Integer> ret = new ArrayList<Integer>();
+				for (Object i : args) {
+					ret.add((Integer) i * 2);
+				}
+				return ret;
+			}
+		};
+		assertEquals(asList(2, 4, 6), list(1, 2, 3).map(doubler));
+		assertEquals(asList(asList(1, 2), asList(3)), chunks);
+		assertEquals(8, doubler.call(4));
+	}
+
+	@Test(expected = EnumeratingException.class)
+	public void testBatchClosuresMustReturnOneResultPerElement() throws Exception {
+		list(1, 2, 3).map(new BatchClosure() {
+			@Override
+			public List<?> callBatch(List<?> args) throws Exception {
+				return asList(1);
+			}
+		});
+	}
+
+	@Test
+	public void testFlatMap() throws Exception {
+		Enumerable<String> list = list("ab", "", "cde");
+		Closure chars = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				String s = first(args);
+				if (s.length() == 3) {
+					return s;
+				}
+				return asList(s.split("(?!^)"));
+			}
+		};
+		assertEquals(asList("a", "b", "", "cde"), list.flatMap(chars));
+		assertEquals(asList("a", "b", "", "cde"), list.iflatMap(chars).toList());
+	}
+
+	@Test
+	public void testLazyFlatten() throws Exception {
+		Enumerable<Object> list = list(1, asList(2, asList(3, asList(4))), asList(), 5);
+		assertEquals(asList(1, 2, 3, 4, 5), list.iflatten().toList());
+		assertEquals(asList(1, 2, asList(3, asList(4)), 5), list.iflatten(1).toList());
+	}
+
+	@Test
+	public void testLazyFlattenAllowsSharedButNotCircularIterables() throws Exception {
+		ArrayList<Object> shared = new ArrayList<Object>(asList(1, 2));
+		assertEquals(asList(1, 2, 1, 2), list(shared, shared).iflatten().toList());
+		shared.add(shared);
+		try {
+			list(shared).iflatten().toList();
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Circular references", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testLazyFlattenWithDepthAllowsCircularIterables() throws Exception {
+		ArrayList<Object> circular = new ArrayList<Object>(asList(1));
+		circular.add(circular);
+		Enumerable<Object> list = list((Object) circular);
+		assertEquals(asList(1, circular), list.iflatten(1).toList());
+		assertEquals(asList(1, 1, circular), list.iflatten(2).toList());
+	}
+
+	@Test
+	public void testZipWith() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3);
+		Closure sum = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				int ret = 0;
+				for (Object i : args) {
+					ret += (Integer) i;
+				}
+				return ret;
+			}
+		};
+		FluentList<Integer> sums = list.zipWith(sum, asList(10, 20), asList(100, 200, 300));
+		assertEquals(asList(111, 222), sums);
+		assertEquals(asList(2, 4, 6), list.izipWith(sumBlock(), list).toList());
+	}
+
+	@Test
+	public void testZipCursor() throws Exception {
+		ZipCursor cursor = list("a", "b").imap(Closures.identity()).zipCursor(asList(1, 2));
+		assertTrue(cursor.next());
+		assertEquals("a", cursor.current(0));
+		assertEquals(1, cursor.current(1));
+	}
+
+	@Test
+	public void testSkip() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3, 4, 5);
+		assertEquals(asList(4, 5), list.skip(3));
+		assertEquals(asList(), list.skip(7));
+		assertEquals(asList(3, 4, 5), list.imap(Closures.identity()).iskip(2).toList());
+		assertEquals(asList(5), list.iskip(2).iskip(2).toList());
+	}
+
+	@Test
+	public void testLazySkipOnRangesJumpsToTheElement() throws Exception {
+		Enumerable<Integer> range = FluentUtils.asEnumerable(FluentUtils.irange(2000000000));
+		assertEquals(asList(1999999998, 1999999999), range.iskip(1999999998).toList());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSkipNegativeAmount() throws Exception {
+		list(1).iskip(-1);
+	}
+
+	@Test
+	public void testTakeWhileAndDropWhile() throws Exception {
+		Enumerable<Integer> list = list(5, 4, 1, 6, 2);
+		assertEquals(asList(5, 4), list.takeWhile(greaterThan(2)));
+		assertEquals(asList(1, 6, 2), list.dropWhile(greaterThan(2)));
+		assertEquals(asList(), list.itakeWhile(greaterThan(9)).toList());
+		assertEquals(asList(5, 4, 1, 6, 2), list.idropWhile(greaterThan(9)).toList());
+	}
+
+	@Test
+	public void testCacheEvaluatesClosuresOnce() throws Exception {
+		final int[] calls = new int[1];
+		Closure plusOne = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				calls[0]++;
+				Integer i = first(args);
+				return i + 1;
+			}
+		};
+		Enumerable<Integer> cached = list(1, 2, 3).<Integer>imap(plusOne).cache();
+		assertEquals(asList(2, 3), cached.take(2));
+		assertEquals(2, calls[0]);
+		assertEquals(asList(2, 3, 4), cached.toList());
+		assertEquals(asList(2, 3, 4), cached.memoize().toList());
+		assertEquals(3, calls[0]);
+	}
+
+	@Test
+	public void testCacheIsDroppedWhenTheSequenceChanges() throws Exception {
+		Sequence<Integer> source = new Sequence<Integer>(1, 5, 7);
+		Enumerable<Integer> cached = source.iselect(greaterThan(2)).cache();
+		assertEquals(asList(5, 7), cached.toList());
+		source.add(9);
+		assertEquals(asList(5, 7, 9), cached.toList());
+		source.set(0, 3);
+		assertEquals(asList(3, 5, 7, 9), cached.toList());
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void testCacheIteratorsFailAfterTheCacheIsDropped() throws Exception {
+		Sequence<Integer> source = new Sequence<Integer>(1, 2);
+		Enumerable<Integer> cached = source.cache();
+		Iterator<Integer> it = cached.iterator();
+		source.add(3);
+		cached.iterator();
+		it.hasNext();
+	}
+
+	@Test
+	public void testTeeReadsTheSourceOnce() throws Exception {
+		final int[] calls = new int[1];
+		Enumerable<Integer> lazy = list(1, 2, 3).iselect(new Predicate() {
+			@Override
+			public boolean eval(Object... args) throws Exception {
+				calls[0]++;
+				return true;
+			}
+		});
+		FluentList<Enumerable<Integer>> branches = lazy.tee(2, 1);
+		ZipCursor cursor = branches.get(0).zipCursor(branches.get(1));
+		ArrayList<Object> ret = new ArrayList<Object>();
+		while (cursor.next()) {
+			ret.add(cursor.current(0));
+			ret.add(cursor.current(1));
+		}
+		assertEquals(asList(1, 1, 2, 2, 3, 3), ret);
+		assertEquals(3, calls[0]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testTeeBranchesCannotGetAheadOfTheBuffer() throws Exception {
+		list(1, 2, 3).tee(2, 2).get(0).toList();
+	}
+
+	@Test
+	public void testMulticast() throws Exception {
+		ArrayList<Object> consumers = new ArrayList<Object>();
+		consumers.add("toList");
+		consumers.add("count");
+		consumers.add(new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				Enumerable<Integer> branch = first(args);
+				return branch.take(2);
+			}
+		});
+		Enumerable<Object> list = new Enumerator<Object>(data);
+		for (int i = 0; i < 500; i++) {
+			data.add(i);
+		}
+		FluentList<Object> result = list.multicast(consumers, 16);
+		assertEquals(data, result.get(0));
+		assertEquals(500, result.get(1));
+		assertEquals(asList(0, 1), result.get(2));
+		Sequence<Integer> single = new Sequence<Integer>(0);
+		assertEquals(asList(asList(0), 1), single.multicast("toList", "count"));
+	}
+
+	@Test
+	public void testLazyUniqByOnSortedInputOnlyComparesAdjacentKeys() throws Exception {
+		Enumerable<String> list = list("a", "b", "cc", "dd", "e");
+		assertEquals(asList("a", "cc", "e"), list.iuniqBy("length", true).toList());
+	}
+
 	@Test
 	public void testMaxWithoutClosure() throws Exception {
 		Enumerable<Integer> list = list(1, 2, 3, 4);
@@ -330,6 +773,33 @@ public class EnumeratorTest {
 		assertEquals(expected, result);
 	}
 
+	@Test
+	public void testExplainDescribesEachStage() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3, 4, 5);
+		String explained = list.iselect(greaterThan(1)).ireject("isEmpty").itake(2)
+				.explain();
+		String[] lines = explained.split("\n");
+		assertEquals(4, lines.length);
+		assertEquals("itake(2)", lines[0]);
+		assertTrue(lines[1].startsWith("  iselect(" + getClass().getName() + "$"));
+		assertTrue(lines[1].endsWith(" & ireject(\"isEmpty\" reflective)"));
+		assertEquals("    Enumerator", lines[2]);
+		assertEquals("      ArrayList", lines[3]);
+	}
+
+	@Test
+	public void testProfileCountsElementsOfEachStage() throws Exception {
+		Enumerable<Integer> list = list(1, 2, 3, 4, 5);
+		Enumerable<Integer> profiled = list.profile().iselect(greaterThan(1)).itake(2);
+		assertEquals(asList(2, 3), profiled.toList());
+		String[] lines = profiled.explain().split("\n");
+		assertTrue(lines[0].startsWith("itake(2) [in: 2, out: 2, time: "));
+		assertTrue(lines[1].contains("[in: 3, out: 2, time: "));
+		assertTrue(lines[2].startsWith("    profile() [out: 3, time: "));
+		assertTrue(lines[2].endsWith(" bytes]"));
+		assertFalse(list.iselect(greaterThan(1)).explain().contains("time: "));
+	}
+
 	private Closure squareAnIntegerClosure() {
 		return new Closure() {
 			@Override
@@ -2,8 +2,10 @@ package org.fluentjava.collections;
 
 import static org.fluentjava.FluentUtils.set;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 import org.junit.Test;
@@ -87,4 +89,19 @@ public class ExtendedSetTest {
 		return set;
 	}
 
+	@Test
+	public void testModificationStampOnlyChangesWhenTheSetDoes() throws Exception {
+		ExtendedSet<Integer> set = new ExtendedSet<Integer>(1, 2);
+		long stamp = set.modificationStamp();
+		set.add(1);
+		set.remove(3);
+		assertEquals(stamp, set.modificationStamp());
+		set.add(3);
+		assertTrue(stamp != set.modificationStamp());
+		stamp = set.modificationStamp();
+		Iterator<Integer> it = set.iterator();
+		it.next();
+		it.remove();
+		assertTrue(stamp != set.modificationStamp());
+	}
 }
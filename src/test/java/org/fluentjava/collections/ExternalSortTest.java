@@ -0,0 +1,120 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.fluentjava.ElementCodecs;
+import org.fluentjava.closures.Closure;
+import org.junit.Test;
+
+public class ExternalSortTest {
+
+	@Test
+	public void testSortsInRunsAndDeletesThem() throws Exception {
+		Sequence<Integer> numbers = randomNumbers(500);
+		int files = temporaryFiles();
+		Enumerable<Integer> sorted = numbers.externalSort(ElementCodecs.integers(), 10);
+		Iterator<Integer> it = sorted.iterator();
+		it.next();
+		assertEquals(files + 50, temporaryFiles());
+		it.next();
+		assertEquals(numbers.sort(), sorted.toList());
+		assertEquals(files + 50, temporaryFiles());
+		((Closeable) it).close();
+		assertEquals(files, temporaryFiles());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testProfiledSortsCanBeClosed() throws Exception {
+		Sequence<Integer> numbers = randomNumbers(500);
+		int files = temporaryFiles();
+		Enumerable<Integer> sorted = numbers.profile().externalSort(ElementCodecs.integers(),
+				10);
+		Iterator<Integer> it = sorted.iterator();
+		it.next();
+		assertEquals(files + 50, temporaryFiles());
+		((Closeable) it).close();
+		assertEquals(files, temporaryFiles());
+	}
+
+	@Test
+	public void testClosingBeforeIteratingWritesNothing() throws Exception {
+		Sequence<Integer> numbers = randomNumbers(500);
+		int files = temporaryFiles();
+		Iterator<Integer> it = numbers.externalSort(ElementCodecs.integers(), 10).iterator();
+		((Closeable) it).close();
+		assertFalse(it.hasNext());
+		assertEquals(files, temporaryFiles());
+	}
+
+	@Test
+	public void testMoreRunsThanMergedAtOnce() throws Exception {
+		Sequence<Integer> numbers = randomNumbers(5000);
+		int files = temporaryFiles();
+		Closure descending = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				Integer i = first(args);
+				Integer j = second(args);
+				return j.compareTo(i);
+			}
+		};
+		Enumerable<Integer> sorted = numbers.externalSort(descending, ElementCodecs.integers(),
+				10);
+		assertEquals(numbers.sort(descending), sorted.toList());
+		assertEquals(files, temporaryFiles());
+	}
+
+	@Test
+	public void testSortByIsStable() throws Exception {
+		Sequence<String> words = new Sequence<String>("bb", "a", "cc", "d", "eee", "f", "", null);
+		words.remove(null);
+		Enumerable<String> sorted = words.externalSortBy("length", ElementCodecs.strings(), 2);
+		assertEquals(asList("", "a", "d", "f", "bb", "cc", "eee"), sorted.toList());
+		assertEquals(sorted.toList(), words.externalSortBy("length",
+				ElementCodecs.<String>serialized(), 3).toList());
+	}
+
+	@Test
+	public void testElementsThatFitInMemoryAreNotWritten() throws Exception {
+		int files = temporaryFiles();
+		Enumerable<Integer> sorted = new Sequence<Integer>(3, 1, 2).externalSort(
+				ElementCodecs.integers(), 3);
+		Iterator<Integer> it = sorted.iterator();
+		assertEquals(1, it.next().intValue());
+		assertEquals(files, temporaryFiles());
+		assertEquals(asList(1, 2, 3), sorted.toList());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMemoryBudgetMustHoldTwoElements() throws Exception {
+		new Sequence<Integer>(1).externalSort(ElementCodecs.integers(), 1);
+	}
+
+	private Sequence<Integer> randomNumbers(int size) {
+		Random random = new Random(size);
+		Sequence<Integer> ret = new Sequence<Integer>();
+		for (int i = 0; i < size; i++) {
+			ret.add(random.nextInt(size));
+		}
+		return ret;
+	}
+
+	private int temporaryFiles() {
+		File directory = new File(System.getProperty("java.io.tmpdir"));
+		int ret = 0;
+		for (String name : directory.list()) {
+			if (name.startsWith("fluentjava-sort")) {
+				ret++;
+			}
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,105 @@
+package org.fluentjava.collections;
+
+import static org.fluentjava.FluentUtils.list;
+import static org.fluentjava.FluentUtils.pair;
+import static org.junit.Assert.assertEquals;
+
+import org.fluentjava.closures.Closure;
+import org.junit.Test;
+
+public class HashJoinTest {
+
+	private FluentList<String> orders = list("a1", "b1", "a2", "c1");
+	private FluentList<String> customers = list("a", "b", "d");
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testJoinBuildingOnTheRight() throws Exception {
+		assertEquals(list(pair("a1", "a"), pair("b1", "b"), pair("a2", "a")), orders.join(
+				customers, customerOfOrder(), "toString", JoinSide.RIGHT).toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testJoinBuildingOnTheLeftFollowsTheRightOrder() throws Exception {
+		assertEquals(list(pair("a1", "a"), pair("a2", "a"), pair("b1", "b")), orders.join(
+				customers, customerOfOrder(), "toString", JoinSide.LEFT).toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testJoinFollowsTheLeftOrderByDefault() throws Exception {
+		assertEquals(list(pair("a1", "a"), pair("b1", "b"), pair("a2", "a")), orders.join(
+				customers, customerOfOrder(), "toString").toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testJoinFollowsTheLeftOrderWhenTheLeftIsSmaller() throws Exception {
+		FluentList<String> left = list("c", "e", "a");
+		assertEquals(list(pair("c", "c1"), pair("a", "a1"), pair("a", "a2")), left.join(orders,
+				"toString", customerOfOrder()).toList());
+		assertEquals(list(pair("c", "c1"), pair("e", (String) null), pair("a", "a1"), pair("a",
+				"a2")), left.leftJoin(orders, "toString", customerOfOrder()).toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testJoinWithDuplicatedKeysOnBothSides() throws Exception {
+		FluentList<String> right = list("a", "a");
+		assertEquals(list(pair("a1", "a"), pair("a1", "a"), pair("a2", "a"), pair("a2",
+				"a")), orders.join(right, customerOfOrder(), "toString").toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testLeftJoin() throws Exception {
+		Enumerable<Pair<String, String>> expected =
+			list(pair("a1", "a"), pair("b1", "b"), pair("a2", "a"), pair("c1", (String) null));
+		assertEquals(expected, orders.leftJoin(customers, customerOfOrder(), "toString",
+				JoinSide.RIGHT).toList());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testLeftJoinBuildingOnTheLeftLeavesUnmatchedToTheEnd() throws Exception {
+		Enumerable<Pair<String, String>> expected =
+			list(pair("a1", "a"), pair("a2", "a"), pair("b1", "b"), pair("c1", (String) null));
+		assertEquals(expected, orders.leftJoin(customers, customerOfOrder(), "toString",
+				JoinSide.LEFT).toList());
+	}
+
+	@Test
+	public void testSemiJoinOnBothSides() throws Exception {
+		FluentList<String> expected = list("a1", "b1", "a2");
+		assertEquals(expected, orders.semiJoin(customers, customerOfOrder(), "toString",
+				JoinSide.RIGHT).toList());
+		assertEquals(expected, orders.semiJoin(customers, customerOfOrder(), "toString",
+				JoinSide.LEFT).toList());
+	}
+
+	@Test
+	public void testAntiJoinOnBothSides() throws Exception {
+		assertEquals(list("c1"), orders.antiJoin(customers, customerOfOrder(), "toString",
+				JoinSide.RIGHT).toList());
+		assertEquals(list("c1"), orders.antiJoin(customers, customerOfOrder(), "toString",
+				JoinSide.LEFT).toList());
+	}
+
+	@Test
+	public void testJoinsAreLazy() throws Exception {
+		Enumerable<String> semi = orders.semiJoin(customers, customerOfOrder(), "toString");
+		customers.add("c");
+		assertEquals(list("a1", "b1", "a2", "c1"), semi.toList());
+	}
+
+	private Closure customerOfOrder() {
+		return new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				String order = first(args);
+				return order.substring(0, 1);
+			}
+		};
+	}
+}
@@ -0,0 +1,68 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KeySortTest {
+
+	@Test
+	public void testIntegerKeysAreSortedStably() throws Exception {
+		Random random = new Random(7);
+		Object[] keys = new Object[2000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextInt(200) - 100;
+		}
+		assertSortsLikeNaturalOrder(keys);
+		keys[0] = Integer.MIN_VALUE;
+		keys[1] = Integer.MAX_VALUE;
+		assertSortsLikeNaturalOrder(keys);
+	}
+
+	@Test
+	public void testLongAndDoubleKeys() throws Exception {
+		assertSortsLikeNaturalOrder(new Object[] {3L, -1L, Long.MAX_VALUE, 0L, Long.MIN_VALUE,
+				-1L});
+		assertSortsLikeNaturalOrder(new Object[] {2.5, -0.0, 0.0, Double.NaN, -3.5, 1e300,
+				Double.NEGATIVE_INFINITY, -1e-300, 2.5});
+	}
+
+	@Test
+	public void testStringAndOtherKeys() throws Exception {
+		assertSortsLikeNaturalOrder(new Object[] {"b", "a", "c", "a", "", "ab"});
+		assertSortsLikeNaturalOrder(new Object[] {'c', 'a', 'b', 'a', 'd', 'c', 'e', 'f'});
+	}
+
+	@Test
+	public void testSortByKeepsOrderOfEqualKeys() throws Exception {
+		FluentList<String> list = new Sequence<String>("bb", "a", "cc", "d", "eee", "f");
+		assertEquals(asList("a", "d", "f", "bb", "cc", "eee"), list.sortBy("length"));
+	}
+
+	/**
+	 * Elements are the positions of the keys, so sorting them tells stability apart.
+	 */
+	private void assertSortsLikeNaturalOrder(Object[] keys) {
+		Integer[] expected = new Integer[keys.length];
+		Object[] elements = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			expected[i] = i;
+			elements[i] = i;
+		}
+		final Object[] originalKeys = keys.clone();
+		Arrays.sort(expected, new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				return new ComparableComparator<Object>().compare(originalKeys[o1],
+						originalKeys[o2]);
+			}
+		});
+		KeySort.sort(keys.clone(), elements);
+		assertArrayEquals(expected, elements);
+	}
+}
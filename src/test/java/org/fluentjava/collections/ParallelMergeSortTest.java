@@ -0,0 +1,56 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ParallelMergeSortTest {
+
+	private final Comparator<Integer> byTens = new Comparator<Integer>() {
+		public int compare(Integer o1, Integer o2) {
+			return o1 / 10 - o2 / 10;
+		}
+	};
+
+	@Test
+	public void testSortsLikeASequentialStableSort() throws Exception {
+		Random random = new Random(42);
+		for (int runs = 1; runs <= 9; runs++) {
+			Integer[] array = new Integer[1000 + runs];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = random.nextInt(300);
+			}
+			Integer[] expected = array.clone();
+			Arrays.sort(expected, byTens);
+			ParallelMergeSort.sort(array, byTens, runs);
+			assertArrayEquals(expected, array);
+		}
+	}
+
+	@Test
+	public void testRunsOfEqualElements() throws Exception {
+		Integer[] array = {5, 3, 1, 4, 2, 0};
+		ParallelMergeSort.sort(array, byTens, 3);
+		assertEquals(asList(5, 3, 1, 4, 2, 0), asList(array));
+	}
+
+	@Test
+	public void testMoreRunsThanElements() throws Exception {
+		Integer[] array = {30, 10, 20};
+		ParallelMergeSort.sort(array, byTens, 8);
+		assertEquals(asList(10, 20, 30), asList(array));
+	}
+
+	@Test
+	public void testParallelSortBy() throws Exception {
+		FluentList<String> list = new Sequence<String>("ccc", "a", "bb", "d", "ee");
+		assertEquals(asList("a", "d", "bb", "ee", "ccc"), list.parallelSortBy("length"));
+		assertEquals(asList("a", "bb", "ccc", "d", "ee"), list.parallelSort());
+	}
+}
@@ -0,0 +1,104 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ReservoirTest {
+
+	@Test
+	public void testSampleOfFewElementsIsAllOfThem() throws Exception {
+		Sequence<Integer> numbers = new Sequence<Integer>(3, 1, 2);
+		assertEquals(asList(3, 1, 2), numbers.sample(5));
+		assertEquals(asList(3, 1, 2), numbers.sample(3));
+		assertEquals(asList(), numbers.sample(0));
+		assertEquals(asList(), new Sequence<Integer>().sample(2));
+		assertEquals(asList(3, 1, 2), numbers.sample(Integer.MAX_VALUE));
+		assertEquals(asList(3, 1, 2), new Enumerator<Integer>(new LinkedList<Integer>(numbers))
+				.sample(Integer.MAX_VALUE));
+		assertEquals(asList(1, 2, 3), numbers.weightedSample(Integer.MAX_VALUE, "intValue")
+				.sort());
+	}
+
+	@Test
+	public void testSampleIsUniformWithAndWithoutRandomAccess() throws Exception {
+		Sequence<Integer> list = new Sequence<Integer>();
+		for (int i = 0; i < 20; i++) {
+			list.add(i);
+		}
+		Enumerable<Integer> iterated = new Enumerator<Integer>(new LinkedList<Integer>(list));
+		int[] fromList = new int[list.size()];
+		int[] fromIterated = new int[list.size()];
+		for (int seed = 0; seed < 4000; seed++) {
+			count(fromList, list.sample(5, seed));
+			count(fromIterated, iterated.sample(5, seed));
+		}
+		for (int i = 0; i < list.size(); i++) {
+			assertTrue(Math.abs(fromList[i] - 1000) < 150);
+			assertTrue(Math.abs(fromIterated[i] - 1000) < 150);
+		}
+	}
+
+	@Test
+	public void testSampleIsDistinctAndRepeatableBySeed() throws Exception {
+		Sequence<Integer> list = new Sequence<Integer>();
+		for (int i = 0; i < 100000; i++) {
+			list.add(i);
+		}
+		FluentList<Integer> sample = list.sample(100, 42);
+		assertEquals(100, sample.size());
+		assertEquals(100, sample.toSet().size());
+		assertEquals(sample, list.sample(100, 42));
+		assertEquals(sample, new Enumerator<Integer>(list).sample(100, 42));
+	}
+
+	@Test
+	public void testWeightedSampleFollowsWeights() throws Exception {
+		Sequence<String> words = new Sequence<String>("a", "bbb", "", "cccccc");
+		int[] counts = new int[7];
+		for (int seed = 0; seed < 5000; seed++) {
+			FluentList<String> sample = words.weightedSample(1, "length", seed);
+			counts[sample.get(0).length()]++;
+		}
+		assertEquals(0, counts[0]);
+		assertTrue(Math.abs(counts[1] - 500) < 100);
+		assertTrue(Math.abs(counts[3] - 1500) < 150);
+		assertTrue(Math.abs(counts[6] - 3000) < 150);
+		assertEquals(asList("a", "bbb", "cccccc"), words.weightedSample(5, "length").sortBy(
+				"length"));
+	}
+
+	@Test
+	public void testWeightedSampleOfManyElements() throws Exception {
+		Sequence<Integer> numbers = new Sequence<Integer>();
+		for (int i = 0; i < 10000; i++) {
+			numbers.add(i % 2);
+		}
+		FluentList<Integer> sample = numbers.weightedSample(50, "intValue", 7);
+		assertEquals(50, sample.size());
+		assertEquals(asList(1), sample.toSet().toList());
+	}
+
+	@Test
+	public void testNegativeWeightsAreRejected() throws Exception {
+		try {
+			new Sequence<Integer>(1, -1).weightedSample(1, "intValue");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("-1"));
+		}
+	}
+
+	private static void count(int[] counts, List<Integer> sample) {
+		assertEquals(5, sample.size());
+		for (int i : sample) {
+			counts[i]++;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import org.fluentjava.FluentUtils;
+import org.junit.Test;
+
+public class SelectionTest {
+
+	@Test
+	public void testNthIsLikeSortingForAnyPosition() throws Exception {
+		Random random = new Random(11);
+		for (int size = 1; size < 200; size += 13) {
+			Sequence<Integer> numbers = new Sequence<Integer>();
+			for (int i = 0; i < size; i++) {
+				numbers.add(random.nextInt(size / 2 + 1));
+			}
+			FluentList<Integer> sorted = numbers.sort();
+			for (int k = 0; k < size; k += 3) {
+				assertEquals(sorted.get(k), numbers.nth(k));
+			}
+		}
+	}
+
+	@Test
+	public void testSortedAndEqualElementsDoNotDegrade() throws Exception {
+		Sequence<Integer> ascending = new Sequence<Integer>();
+		Sequence<Integer> equal = new Sequence<Integer>();
+		for (int i = 0; i < 100000; i++) {
+			ascending.add(i);
+			equal.add(7);
+		}
+		assertEquals(99990, ascending.nth(99990).intValue());
+		assertEquals(7, equal.median().intValue());
+	}
+
+	@Test
+	public void testNthByMedianAndPercentiles() throws Exception {
+		Sequence<String> words = new Sequence<String>("ccc", "a", "dddd", "bb", "eeeee");
+		assertEquals("dddd", words.nthBy(3, "length"));
+		assertEquals("ccc", words.median());
+		assertEquals(asList("ccc", "a", "dddd", "bb", "eeeee"), words);
+		Sequence<Integer> numbers = new Sequence<Integer>();
+		for (int i = 100; i >= 1; i--) {
+			numbers.add(i);
+		}
+		assertEquals(asList(99, 50, 1, 100, 90), numbers.percentiles(99, 50, 0, 100, 90));
+		assertEquals(50, numbers.median().intValue());
+		assertEquals(asList(null, null), new Sequence<Integer>().percentiles(50, 90));
+		assertNull(new Sequence<Integer>().median());
+	}
+
+	@Test
+	public void testInPlaceReordersAroundThePosition() throws Exception {
+		Sequence<Integer> numbers = new Sequence<Integer>(9, 1, 8, 2, 7, 3, 6, 4, 5, 0, 5);
+		assertEquals(5, numbers.nthInPlace(6).intValue());
+		assertEquals(5, numbers.get(6).intValue());
+		for (int i = 0; i < numbers.size(); i++) {
+			assertEquals(i <= 6, numbers.get(i) <= 5);
+		}
+		FluentList<Integer> linked = FluentUtils.fromList(new LinkedList<Integer>(numbers));
+		assertEquals(asList(0, 9), linked.percentilesInPlace(0, 100));
+		assertEquals(0, linked.get(0).intValue());
+		assertEquals(9, linked.get(10).intValue());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNthOutOfBounds() throws Exception {
+		new Sequence<Integer>(1, 2).nth(2);
+	}
+}
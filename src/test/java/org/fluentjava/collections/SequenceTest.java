@@ -10,7 +10,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 
 import org.fluentjava.FluentUtils;
 import org.junit.Test;
@@ -151,4 +153,62 @@ public class SequenceTest {
 		return ret;
 	}
 
+	@Test
+	public void testModificationStampChangesOnEveryModification() throws Exception {
+		Sequence<Integer> list = new Sequence<Integer>(1, 2, 3, 4);
+		long stamp = list.modificationStamp();
+		list.get(0);
+		list.contains(5);
+		assertEquals(stamp, list.modificationStamp());
+		list.set(0, 10);
+		assertTrue(stamp != list.modificationStamp());
+		stamp = list.modificationStamp();
+		Iterator<Integer> it = list.listIterator();
+		it.next();
+		it.remove();
+		assertTrue(stamp != list.modificationStamp());
+		stamp = list.modificationStamp();
+		list.subList(0, 1).clear();
+		assertTrue(stamp != list.modificationStamp());
+		stamp = list.modificationStamp();
+		list.subList(0, 2).set(0, 99);
+		assertTrue(stamp != list.modificationStamp());
+		stamp = list.modificationStamp();
+		list.subList(0, 2).subList(1, 2).listIterator().next();
+		assertEquals(stamp, list.modificationStamp());
+		ListIterator<Integer> sub = list.subList(1, 2).listIterator();
+		sub.next();
+		sub.set(7);
+		assertTrue(stamp != list.modificationStamp());
+		assertEquals(asList(99, 7), list);
+	}
+
+	@Test
+	public void testCacheSeesWritesThroughSubLists() throws Exception {
+		Sequence<Integer> list = new Sequence<Integer>(3, 1, 2);
+		Enumerable<Integer> cached = list.cache();
+		assertEquals(asList(3, 1, 2), cached.toList());
+		list.subList(0, 2).set(0, 99);
+		assertEquals(asList(99, 1, 2), cached.toList());
+	}
+
+	@Test(timeout = 1000)
+	public void testClearingSubListsOfLargeSequences() throws Exception {
+		int n = 200000;
+		Sequence<Integer> list = new Sequence<Integer>();
+		for (int i = 0; i < n; i++) {
+			list.add(i);
+		}
+		Enumerable<Integer> cached = list.cache();
+		assertEquals(n, cached.toList().size());
+		list.subList(0, n / 2).clear();
+		assertEquals(n / 2, list.size());
+		assertEquals(Integer.valueOf(n / 2), list.get(0));
+		assertEquals(n / 2, cached.toList().size());
+		List<Integer> range = list.subList(1, 3);
+		range.addAll(1, asList(-1, -2));
+		assertEquals(4, range.size());
+		assertEquals(asList(n / 2, n / 2 + 1, -1, -2, n / 2 + 2), list.subList(0, 5));
+		assertEquals(n / 2 + 2, cached.toList().size());
+	}
 }
@@ -0,0 +1,44 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SortedFluentMapTest {
+
+	@Test
+	public void testIteratesInKeyOrder() throws Exception {
+		Map<String, Integer> map = new HashMap<String, Integer>();
+		map.put("c", 3);
+		map.put("a", 1);
+		map.put("b", 2);
+		SortedFluentMap<String, Integer> sorted = new SortedFluentMap<String, Integer>(map);
+		assertEquals(map, sorted);
+		assertEquals(asList("a", "b", "c"), sorted.keys().toList());
+		assertEquals(asList(1, 2, 3), sorted.allValues());
+		assertEquals("a", sorted.firstKey());
+		assertEquals("c", sorted.lastKey());
+	}
+
+	@Test
+	public void testNearestKeysAndRanges() throws Exception {
+		SortedFluentMap<Integer, String> map = new SortedFluentMap<Integer, String>();
+		map.putAt(10, "x").putAt(20, "y").putAt(30, "z");
+		assertEquals(20, map.ceilingKey(15).intValue());
+		assertEquals(10, map.floorKey(15).intValue());
+		assertEquals(30, map.higherKey(20).intValue());
+		assertEquals(10, map.lowerKey(20).intValue());
+		assertNull(map.floorKey(5));
+		assertEquals(asList("x", "y"), map.range(10, 30).allValues());
+		assertEquals(asList(10), map.headMap(20).keys().toList());
+		assertEquals(asList(20, 30), map.tailMap(20).keys().toList());
+		SortedFluentMap<Integer, String> other = new SortedFluentMap<Integer, String>();
+		other.putAt(20, "w").putAt(40, "v");
+		assertEquals(asList(20), map.keys().intersect(other.keys()).toList());
+	}
+}
@@ -0,0 +1,132 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.fluentjava.closures.Closure;
+import org.junit.Test;
+
+public class SortedFluentSetTest {
+
+	@Test
+	public void testIteratesInOrder() throws Exception {
+		SortedFluentSet<Integer> set = new SortedFluentSet<Integer>(5, 1, 3, 3);
+		set.insert(4, 2);
+		assertEquals(asList(1, 2, 3, 4, 5), set.toList());
+		assertEquals(1, set.first().intValue());
+		assertEquals(5, set.last().intValue());
+		assertEquals(asList(1, 2, 3, 4, 5), set.sort());
+	}
+
+	@Test
+	public void testNearestElementsAndRanges() throws Exception {
+		SortedFluentSet<Integer> set = new SortedFluentSet<Integer>(10, 20, 30);
+		assertEquals(20, set.ceiling(15).intValue());
+		assertEquals(20, set.ceiling(20).intValue());
+		assertEquals(30, set.higher(20).intValue());
+		assertEquals(10, set.floor(15).intValue());
+		assertEquals(20, set.floor(20).intValue());
+		assertEquals(10, set.lower(20).intValue());
+		assertNull(set.lower(10));
+		assertNull(set.higher(30));
+		assertEquals(asList(10, 20), set.range(5, 30).toList());
+		assertEquals(asList(10), set.headSet(20).toList());
+		assertEquals(asList(20, 30), set.tailSet(20).toList());
+		set.tailSet(20).remove(30);
+		assertEquals(asList(10, 20), set.toList());
+	}
+
+	@Test
+	public void testSetOperationsMergeLikeHashSets() throws Exception {
+		Random random = new Random(5);
+		for (int i = 0; i < 20; i++) {
+			ExtendedSet<Integer> left = new ExtendedSet<Integer>();
+			ExtendedSet<Integer> right = new ExtendedSet<Integer>();
+			for (int j = 0; j < 30; j++) {
+				left.add(random.nextInt(40));
+				right.add(random.nextInt(40));
+			}
+			SortedFluentSet<Integer> sortedLeft = new SortedFluentSet<Integer>(left);
+			SortedFluentSet<Integer> sortedRight = new SortedFluentSet<Integer>(right);
+			assertEquals(left.intersect(right), sortedLeft.intersect(sortedRight));
+			assertEquals(left.union(right), sortedLeft.union(sortedRight));
+			assertEquals(left.difference(right), sortedLeft.difference(sortedRight));
+			assertEquals(left.xor(right), sortedLeft.xor(sortedRight));
+			assertEquals(left.xor(right), sortedLeft.xor(right));
+			assertEquals(left.intersect(right), sortedLeft.intersect(right));
+			assertEquals(sortedLeft.union(sortedRight).toList(), sortedLeft.union(right).toList());
+		}
+	}
+
+	@Test
+	public void testComparatorOrder() throws Exception {
+		Closure descending = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				Integer i = first(args);
+				Integer j = second(args);
+				return j.compareTo(i);
+			}
+		};
+		SortedFluentSet<Integer> set = SortedFluentSet.withComparator(descending);
+		set.insert(1, 3, 2);
+		SortedFluentSet<Integer> other = SortedFluentSet.withComparator(descending);
+		other.insert(2, 4);
+		assertEquals(asList(3, 2, 1), set.toList());
+		assertEquals(3, set.ceiling(4).intValue());
+		assertNull(set.floor(4));
+		assertEquals(asList(4, 3, 2, 1), set.union(other).toList());
+		assertEquals(asList(4, 3, 1), set.xor(other).toList());
+	}
+
+	@Test
+	public void testSetOperationsFindElementsByTheComparator() throws Exception {
+		Closure ignoringCase = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				String s = first(args);
+				String t = second(args);
+				return s.compareToIgnoreCase(t);
+			}
+		};
+		SortedFluentSet<String> set = SortedFluentSet.withComparator(ignoringCase);
+		set.insert("a", "B", "c");
+		SortedFluentSet<String> other = SortedFluentSet.withComparator(ignoringCase);
+		other.insert("b", "C", "d");
+		assertEquals(asList("B", "c"), set.intersect(other).toList());
+		assertEquals(asList("a", "B", "c", "d"), set.union(other).toList());
+		assertEquals(asList("a"), set.difference(other).toList());
+		assertEquals(asList("a", "d"), set.symmetricDifference(other).toList());
+		assertEquals(asList("B", "c"), set.intersect(asList("C", "b", "e")).toList());
+		assertEquals(asList("a"), set.difference(asList("C", "b", "e")).toList());
+	}
+
+	@Test
+	public void testSetOperationsMergeWithViewsOfTheSameSet() throws Exception {
+		final int[] comparisons = {0};
+		Closure descending = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				comparisons[0]++;
+				Integer i = first(args);
+				Integer j = second(args);
+				return j.compareTo(i);
+			}
+		};
+		SortedFluentSet<Integer> set = SortedFluentSet.withComparator(descending);
+		for (int i = 0; i < 1000; i++) {
+			set.add(i);
+		}
+		SortedFluentSet<Integer> head = set.headSet(499);
+		comparisons[0] = 0;
+		assertEquals(500, set.difference(head).size());
+		assertEquals(500, set.intersect(head).size());
+		assertEquals(1000, head.union(set).size());
+		assertEquals(500, set.xor(head).size());
+		assertTrue(comparisons[0] < 4 * 1000 + 4 * 100);
+	}
+}
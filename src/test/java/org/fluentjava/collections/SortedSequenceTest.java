@@ -0,0 +1,142 @@
+package org.fluentjava.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.fluentjava.closures.Closure;
+import org.junit.Test;
+
+public class SortedSequenceTest {
+
+	@Test
+	public void testStaysSorted() throws Exception {
+		SortedSequence<Integer> list = new SortedSequence<Integer>(5, 1, 4);
+		list.add(3);
+		list.insert(2, 6, 0);
+		assertEquals(asList(0, 1, 2, 3, 4, 5, 6), list);
+		Random random = new Random(3);
+		Sequence<Integer> all = new Sequence<Integer>(list);
+		for (int i = 0; i < 100; i++) {
+			Sequence<Integer> batch = new Sequence<Integer>();
+			for (int j = random.nextInt(20); j > 0; j--) {
+				batch.add(random.nextInt(50));
+			}
+			list.addAll(batch);
+			all.addAll(batch);
+		}
+		assertEquals(all.sort(), list);
+	}
+
+	@Test
+	public void testLookingUpNullOrOtherTypesFindsNothing() throws Exception {
+		SortedSequence<String> list = new SortedSequence<String>("b", "a", "c");
+		assertFalse(list.contains(null));
+		assertEquals(-1, list.indexOf(null));
+		assertEquals(-1, list.lastIndexOf(null));
+		assertFalse(list.remove(null));
+		assertFalse(list.contains(1));
+		assertEquals(asList("a", "b", "c"), list);
+	}
+
+	@Test
+	public void testSortedByKeyKeepsInsertionOrderOfEqualKeys() throws Exception {
+		SortedSequence<String> list = SortedSequence.withKey("length");
+		list.insert("bb", "a", "cc", "d");
+		list.insert("eee", "f", "");
+		assertEquals(asList("", "a", "d", "f", "bb", "cc", "eee"), list);
+		assertEquals(1, list.indexOf("a"));
+		assertEquals(3, list.lastIndexOf("f"));
+		assertTrue(list.contains("cc"));
+		assertFalse(list.contains("zz"));
+		assertEquals("bb", list.detectByKey(2));
+		assertNull(list.detectByKey(4));
+		assertTrue(list.remove("d"));
+		assertEquals(asList("", "a", "f", "bb", "cc", "eee"), list);
+	}
+
+	@Test
+	public void testRangeViews() throws Exception {
+		SortedSequence<Integer> list = new SortedSequence<Integer>(1, 3, 3, 5, 7, 9);
+		assertEquals(asList(3, 3, 5), list.range(2, 7));
+		assertEquals(asList(1, 3, 3), list.headList(5));
+		assertEquals(asList(7, 9), list.tailList(6));
+		assertEquals(asList(), list.range(7, 2));
+		assertEquals(asList(3, 3), list.range(2, 7).headList(5));
+		try {
+			list.range(2, 7).add(4);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCannotBreakTheOrder() throws Exception {
+		SortedSequence<Integer> list = new SortedSequence<Integer>(1, 2);
+		try {
+			list.set(0, 3);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			list.add(0, 3);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(asList(1, 2), list);
+	}
+
+	@Test
+	public void testAddingManyElementsComputesEachKeyOnce() throws Exception {
+		final int[] calls = {0};
+		Closure length = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				calls[0]++;
+				String s = first(args);
+				return s.length();
+			}
+		};
+		SortedSequence<String> list = SortedSequence.withKey(length);
+		list.insert("ccc", "a", "bb", "", "dddd");
+		assertEquals(asList("", "a", "bb", "ccc", "dddd"), list);
+		assertEquals(5, calls[0]);
+	}
+
+	@Test
+	public void testFastPathsAgreeWithEnumerable() throws Exception {
+		Closure descending = new Closure() {
+			@Override
+			public Object call(Object... args) throws Exception {
+				String s1 = first(args);
+				String s2 = second(args);
+				return s2.compareTo(s1);
+			}
+		};
+		SortedSequence<String> list = SortedSequence.withComparator(descending);
+		list.insert("b", "d", "a", "c");
+		Sequence<String> copy = new Sequence<String>(list);
+		assertEquals(asList("d", "c", "b", "a"), list);
+		assertEquals(copy.sort(descending), list.sort(descending));
+		assertEquals(copy.min(descending), list.min(descending));
+		assertEquals(copy.max(descending), list.max(descending));
+		assertEquals(copy.sort(), list.sort());
+		assertEquals(copy.min(), list.min());
+
+		SortedSequence<String> byLength = SortedSequence.withKey("length");
+		byLength.insert("bb", "a", "cc", "d");
+		assertEquals("bb", byLength.maxBy("length"));
+		assertEquals("a", byLength.minBy("length"));
+		assertEquals(new Sequence<String>(byLength).sortBy("length"), byLength.sortBy("length"));
+		assertEquals(9, new SortedSequence<Integer>(4, 9, 1).max().intValue());
+		assertNull(new SortedSequence<Integer>().min());
+	}
+}
@@ -0,0 +1,47 @@
+package org.fluentjava.iterators;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ZipCursorTest {
+
+	@Test
+	public void testWalksUpToTheShortestSource() throws Exception {
+		List<String> names = asList("one", "two", "three");
+		List<Integer> numbers = new LinkedList<Integer>(asList(1, 2, 3, 4));
+		List<Boolean> odd = asList(true, false);
+		ZipCursor cursor = new ZipCursor(names, numbers, odd);
+		ArrayList<String> ret = new ArrayList<String>();
+		while (cursor.next()) {
+			String name = cursor.current(0);
+			ret.add(name + cursor.current(1) + cursor.current(2));
+		}
+		assertEquals(asList("one1true", "two2false"), ret);
+		assertEquals(3, cursor.width());
+		assertFalse(cursor.next());
+	}
+
+	@Test
+	public void testDoesNotConsumeIteratorsPastTheShortestSource() throws Exception {
+		List<Integer> shorter = new LinkedList<Integer>(asList(1));
+		HashSet<Integer> longer = new HashSet<Integer>(asList(5, 6));
+		ZipCursor cursor = new ZipCursor(longer, shorter);
+		assertTrue(cursor.next());
+		assertEquals(0, cursor.index());
+		assertFalse(cursor.next());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCurrentBeforeNext() throws Exception {
+		new ZipCursor(asList(1)).current(0);
+	}
+}